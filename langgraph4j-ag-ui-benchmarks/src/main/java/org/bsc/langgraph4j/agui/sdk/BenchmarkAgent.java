@@ -0,0 +1,103 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.agent.RunAgentParameters;
+import com.agui.core.message.BaseMessage;
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.GraphInput;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.action.InterruptionMetadata;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.bsc.langgraph4j.spring.ai.agentexecutor.AgentExecutorEx;
+import org.bsc.langgraph4j.spring.ai.util.MessageUtil;
+import org.bsc.langgraph4j.state.AgentState;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+import static org.bsc.langgraph4j.utils.CollectionsUtils.lastOf;
+
+/**
+ * Agent executor driven by a given (scripted) chat model, used by benchmarks
+ */
+public class BenchmarkAgent extends AGUIAbstractLangGraphAgent {
+
+    private final MemorySaver saver = new MemorySaver();
+    private final ChatModel model;
+    private final boolean streaming;
+
+    public BenchmarkAgent(AGUIAgentConfig config, ChatModel model, boolean streaming) {
+        super(config);
+        this.model = requireNonNull(model, "model cannot be null");
+        this.streaming = streaming;
+    }
+
+    @Override
+    protected GraphData buildStateGraph() throws GraphStateException {
+
+        var agent = AgentExecutorEx.builder()
+                .chatModel(model)
+                .streaming(streaming)
+                .emitStreamingEnd(true)
+                .toolsFromObject(new BenchmarkTools())
+                .approvalOn("sendEmail",
+                        (nodeId, state) ->
+                                InterruptionMetadata.builder(nodeId, state)
+                                        .build()
+                )
+                .build();
+
+        var compileConfig = CompileConfig.builder().checkpointSaver(saver).build();
+
+        return new GraphData(agent.compile(compileConfig));
+    }
+
+    @Override
+    protected GraphInput buildGraphInput(RunAgentParameters input) {
+
+        var lastUserMessage = lastOf(input.getMessages())
+                .map(BaseMessage::getContent)
+                .orElseThrow(() -> new IllegalStateException("last user message not found"));
+
+        return GraphInput.args(Map.of("messages", new UserMessage(lastUserMessage)));
+    }
+
+    @Override
+    protected <S extends AgentState> List<Approval> onInterruption(RunAgentParameters input, InterruptionMetadata<S> state) {
+
+        var messages = state.state().<List<Message>>value("messages")
+                .orElseThrow(() -> new IllegalStateException("messages not found into given state"));
+
+        return lastOf(messages)
+                .flatMap(MessageUtil::asAssistantMessage)
+                .filter(AssistantMessage::hasToolCalls)
+                .map(AssistantMessage::getToolCalls)
+                .map(toolCalls ->
+                        toolCalls.stream().map(toolCall -> {
+                            var id = toolCall.id().isBlank() ?
+                                    newMessageId() :
+                                    toolCall.id();
+                            return new Approval(id, toolCall.name(), toolCall.arguments());
+                        }).toList()
+                )
+                .orElseGet(List::of);
+    }
+
+    @Override
+    protected Optional<String> nodeOutputToText(NodeOutput<? extends AgentState> output) {
+        if (streaming || output.isSTART() || output.isEND()) {
+            return Optional.empty();
+        }
+        return output.state().<List<Message>>value("messages")
+                .flatMap(messages -> lastOf(messages))
+                .flatMap(MessageUtil::asAssistantMessage)
+                .map(AssistantMessage::getText)
+                .filter(text -> !text.isEmpty());
+    }
+}
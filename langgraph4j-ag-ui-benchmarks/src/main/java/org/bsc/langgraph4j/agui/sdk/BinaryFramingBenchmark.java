@@ -0,0 +1,128 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.message.Role;
+import com.agui.server.EventFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a typical run event sequence, SSE JSON versus the {@link AGUIBinaryFraming} Smile and CBOR frames.
+ * The {@code bytes} auxiliary counter reports the bytes on wire of the sequence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFramingBenchmark {
+
+    private static final byte[] DATA = "data:".getBytes();
+    private static final byte[] EOL = "\n\n".getBytes();
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    String encoding;
+
+    @Param({"100"})
+    int tokens;
+
+    private ObjectWriter jsonWriter;
+    private ObjectReader jsonReader;
+    private AGUIBinaryFraming framing;
+    private List<BaseEvent> events;
+    private byte[] encoded;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WireCounters {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        final ObjectMapper mapper = Payloads.compactObjectMapper();
+        jsonWriter = mapper.writerFor(BaseEvent.class);
+        jsonReader = mapper.readerFor(BaseEvent.class);
+        framing = switch (encoding) {
+            case "SMILE" -> AGUIBinaryFraming.smile(mapper);
+            case "CBOR" -> AGUIBinaryFraming.cbor(mapper);
+            default -> null;
+        };
+
+        var ids = IdGenerator.timeOrdered();
+        var threadId = ids.newId();
+        var runId = ids.newId();
+        var messageId = ids.newId();
+        var toolCallId = ids.newId();
+
+        events = new ArrayList<>(tokens + 8);
+        events.add(EventFactory.runStartedEvent(threadId, runId));
+        events.add(EventFactory.textMessageStartEvent(messageId, Role.assistant.name()));
+        for (int i = 0; i < tokens; ++i) {
+            events.add(EventFactory.textMessageContentEvent(messageId, " token"));
+        }
+        events.add(EventFactory.textMessageEndEvent(messageId));
+        events.add(EventFactory.toolCallStartEvent(messageId, "sendEmail", toolCallId));
+        events.add(EventFactory.toolCallArgsEvent(
+                "{\"to\":\"someone@example.com\",\"subject\":\"AG-UI test\",\"body\":\"\"}", toolCallId));
+        events.add(EventFactory.toolCallEndEvent(toolCallId));
+        events.add(EventFactory.runFinishedEvent(threadId, runId));
+
+        encoded = encode();
+    }
+
+    private byte[] encode() throws IOException {
+        final var out = new ByteArrayOutputStream(8 * 1024);
+        for (var event : events) {
+            if (framing == null) {
+                out.write(DATA);
+                jsonWriter.writeValue(out, event);
+                out.write(EOL);
+            } else {
+                out.write(framing.encode(event));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeRun(WireCounters counters) throws IOException {
+        final var result = encode();
+        counters.bytes += result.length;
+        return result;
+    }
+
+    @Benchmark
+    public List<BaseEvent> decodeRun() throws IOException {
+        if (framing != null) {
+            return framing.decode(encoded);
+        }
+        // SSE frames: data:<json>\n\n
+        final var result = new ArrayList<BaseEvent>(events.size());
+        var offset = 0;
+        while (offset < encoded.length) {
+            final var start = offset + DATA.length;
+            var end = start;
+            while (encoded[end] != '\n') {
+                ++end;
+            }
+            result.add(jsonReader.readValue(encoded, start, end - start));
+            offset = end + EOL.length;
+        }
+        return result;
+    }
+}
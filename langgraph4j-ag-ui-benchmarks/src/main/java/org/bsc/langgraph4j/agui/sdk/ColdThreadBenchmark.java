@@ -0,0 +1,48 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.agent.RunAgentParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time to RUN_STARTED for a new conversation thread, building a graph per thread versus sharing one compiled graph
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColdThreadBenchmark {
+
+    @Param({"PER_THREAD", "SHARED"})
+    AGUIAgentConfig.GraphSharing graphSharing;
+
+    private final AtomicLong threadIds = new AtomicLong();
+    private BenchmarkAgent agent;
+    private RunAgentParameters template;
+
+    @Setup
+    public void setup() throws Exception {
+        var config = AGUIAgentConfig.builder()
+                .graphSharing(graphSharing)
+                .maxThreads(1_000)
+                .build();
+        agent = new BenchmarkAgent(config, new ScriptedChatModel(ScriptedChatModel.tokens(10)), true);
+        agent.warmUp();
+        template = Payloads.parameters(Payloads.objectMapper(), "thread", "run", 1).toRunAgentParameters();
+    }
+
+    @Benchmark
+    public Object timeToRunStarted() {
+        var threadId = "cold-" + threadIds.incrementAndGet();
+        var input = RunAgentParameters.builder()
+                .threadId(threadId)
+                .runId(threadId)
+                .messages(template.getMessages())
+                .build();
+        return agent.run(input).blockFirst();
+    }
+}
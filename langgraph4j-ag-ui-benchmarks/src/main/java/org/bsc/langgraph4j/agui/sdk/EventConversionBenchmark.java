@@ -0,0 +1,76 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.agent.RunAgentParameters;
+import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.streaming.StreamingOutput;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the graph outputs into AG-UI events.
+ * Node outputs are recorded once from a graph driven by a scripted model, then replayed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventConversionBenchmark {
+
+    @Param({"100", "1000"})
+    int tokens;
+
+    private RunAgentParameters input;
+    private BenchmarkAgent conversionAgent;
+    private List<NodeOutput<? extends AgentState>> streamingOutputs;
+    private List<NodeOutput<? extends AgentState>> nodeOutputs;
+    private final IdGenerator ids = IdGenerator.timeOrdered();
+
+    @Setup
+    public void setup() throws Exception {
+        input = Payloads.parameters(Payloads.objectMapper(), "thread", "run", 1).toRunAgentParameters();
+
+        streamingOutputs = record(new BenchmarkAgent(AGUIAgentConfig.builder().build(),
+                new ScriptedChatModel(ScriptedChatModel.tokens(tokens)), true));
+
+        conversionAgent = new BenchmarkAgent(AGUIAgentConfig.builder().build(),
+                new ScriptedChatModel(ScriptedChatModel.tokens(tokens)), false);
+        nodeOutputs = record(conversionAgent);
+    }
+
+    private List<NodeOutput<? extends AgentState>> record(BenchmarkAgent agent) throws Exception {
+        var graph = agent.buildStateGraph().compiledGraph();
+        var result = new ArrayList<NodeOutput<? extends AgentState>>();
+        for (var output : graph.stream(agent.buildGraphInput(input), RunnableConfig.builder().threadId("record").build())) {
+            result.add(output);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void streamingStateMachine(Blackhole bh) {
+        var runContext = new RunContext(input, ids::newId);
+        for (var output : streamingOutputs) {
+            if (output instanceof StreamingOutput<? extends AgentState> streaming) {
+                runContext.onStreamingOutput(streaming, bh::consume);
+            } else {
+                runContext.closeStreaming(bh::consume);
+            }
+        }
+        runContext.closeStreaming(bh::consume);
+    }
+
+    @Benchmark
+    public void nodeOutputToEvents(Blackhole bh) {
+        for (var output : nodeOutputs) {
+            conversionAgent.nodeOutputToEvents(input, output).forEach(bh::consume);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.message.Role;
+import com.agui.server.EventFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of AG-UI events and their SSE framing.
+ * Run it with {@code -prof gc} to compare the bytes allocated per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EOL = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"TEXT_MESSAGE_CONTENT", "TOOL_CALL_ARGS", "RUN_STARTED"})
+    String eventType;
+
+    private ObjectMapper mapper;
+    private ObjectMapper compactMapper;
+    private BaseEvent event;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+
+    @Setup
+    public void setup() {
+        mapper = Payloads.objectMapper();
+        compactMapper = Payloads.compactObjectMapper();
+        var id = IdGenerator.timeOrdered().newId();
+        event = switch (eventType) {
+            case "TEXT_MESSAGE_CONTENT" -> EventFactory.textMessageContentEvent(id, " token");
+            case "TOOL_CALL_ARGS" -> EventFactory.toolCallArgsEvent(
+                    "{\"to\":\"someone@example.com\",\"subject\":\"AG-UI test\",\"body\":\"\"}", id);
+            case "RUN_STARTED" -> EventFactory.runStartedEvent(id, id);
+            default -> EventFactory.textMessageStartEvent(id, Role.assistant.name());
+        };
+    }
+
+    @Benchmark
+    public byte[] jacksonWriteBytes() throws IOException {
+        return mapper.writerFor(BaseEvent.class).writeValueAsBytes(event);
+    }
+
+    /**
+     * Compact, hand-written, serializers
+     */
+    @Benchmark
+    public byte[] compactWriteBytes() throws IOException {
+        return compactMapper.writerFor(BaseEvent.class).writeValueAsBytes(event);
+    }
+
+    /**
+     * String framing: the JSON string of the event, formatted into a second string, then encoded to bytes
+     */
+    @Benchmark
+    public int sseStringFraming() throws IOException {
+        out.reset();
+        out.write(DATA);
+        out.write(" %s".formatted(mapper.writeValueAsString(event)).getBytes(StandardCharsets.UTF_8));
+        out.write(EOL);
+        return out.size();
+    }
+
+    /**
+     * Stream framing: the event serialized straight into the response stream
+     */
+    @Benchmark
+    public int sseStreamFraming() throws IOException {
+        out.reset();
+        out.write(DATA);
+        mapper.writeValue(out, event);
+        out.write(EOL);
+        return out.size();
+    }
+
+    @Benchmark
+    public int sseStreamFramingCompact() throws IOException {
+        out.reset();
+        out.write(DATA);
+        compactMapper.writeValue(out, event);
+        out.write(EOL);
+        return out.size();
+    }
+}
@@ -0,0 +1,55 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.agent.RunAgentParameters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of the RunAgentInput request payload, for short and long message histories
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParametersDeserializationBenchmark {
+
+    @Param({"1", "500"})
+    int historySize;
+
+    private ObjectMapper mapper;
+    private byte[] payload;
+    private AGUIRequestReader reader;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = Payloads.objectMapper();
+        payload = Payloads.runAgentInput("thread", "run", historySize).getBytes(StandardCharsets.UTF_8);
+
+        // the thread is known, so its history is held by the checkpoint
+        var agent = new BenchmarkAgent(AGUIAgentConfig.builder().historyTail(1).build(),
+                new ScriptedChatModel(ScriptedChatModel.tokens(10)), true);
+        agent.threads().computeIfAbsent("thread", threadId -> agent.buildStateGraph());
+        reader = new AGUIRequestReader(mapper, agent);
+    }
+
+    @Benchmark
+    public AGUIParameters readParameters() throws IOException {
+        return mapper.readValue(payload, AGUIParameters.class);
+    }
+
+    @Benchmark
+    public RunAgentParameters readRunAgentParameters() throws IOException {
+        return mapper.readValue(payload, AGUIParameters.class).toRunAgentParameters();
+    }
+
+    @Benchmark
+    public AGUIParameters readHistoryAware() throws IOException {
+        return reader.read(payload);
+    }
+}
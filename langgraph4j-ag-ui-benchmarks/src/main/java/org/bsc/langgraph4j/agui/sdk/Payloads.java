@@ -0,0 +1,63 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.json.ObjectMapperFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Request payloads and JSON mapper shared by benchmarks
+ */
+public final class Payloads {
+
+    private Payloads() {}
+
+    /**
+     * @return a mapper with the AG-UI mixins only
+     */
+    public static ObjectMapper objectMapper() {
+        var result = new ObjectMapper();
+        ObjectMapperFactory.addMixins(result);
+        return result;
+    }
+
+    /**
+     * @return a mapper with the compact event serializers
+     */
+    public static ObjectMapper compactObjectMapper() {
+        return AGUIEventSerializers.register(objectMapper());
+    }
+
+    /**
+     * Builds a RunAgentInput JSON payload as sent by the AG-UI client
+     *
+     * @param threadId the thread id
+     * @param runId the run id
+     * @param historySize number of messages, alternating user and assistant, the last one is always a user message
+     * @return the JSON payload
+     */
+    public static String runAgentInput(String threadId, String runId, int historySize) {
+        var json = new StringBuilder(256 + historySize * 128)
+                .append("{\"threadId\":\"").append(threadId)
+                .append("\",\"runId\":\"").append(runId)
+                .append("\",\"tools\":[],\"context\":[],\"forwardedProps\":{},\"messages\":[");
+
+        for (int i = 0; i < historySize; ++i) {
+            var role = ((historySize - i) % 2 == 1) ? "user" : "assistant";
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"msg-").append(i)
+                    .append("\",\"role\":\"").append(role)
+                    .append("\",\"content\":\"message ").append(i)
+                    .append(" of the conversation, with some text to make it look like a real one\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    public static AGUIParameters parameters(ObjectMapper mapper, String threadId, String runId, int historySize) {
+        try {
+            return mapper.readValue(runAgentInput(threadId, runId, historySize), AGUIParameters.class);
+        } catch (Exception ex) {
+            throw new IllegalStateException("invalid payload", ex);
+        }
+    }
+}
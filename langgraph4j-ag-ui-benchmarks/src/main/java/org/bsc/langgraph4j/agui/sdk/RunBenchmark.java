@@ -0,0 +1,49 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.agent.RunAgentParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End to end agent run, from RunAgentParameters to the last AG-UI event, driven by a scripted streaming model
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunBenchmark {
+
+    @Param({"100", "1000"})
+    int tokens;
+
+    private final AtomicLong threadIds = new AtomicLong();
+    private BenchmarkAgent agent;
+    private RunAgentParameters template;
+
+    @Setup
+    public void setup() throws Exception {
+        var config = AGUIAgentConfig.builder()
+                .graphSharing(AGUIAgentConfig.GraphSharing.SHARED)
+                .runScheduler(RunSchedulers.callerThread())
+                .maxThreads(1_000)
+                .build();
+        agent = new BenchmarkAgent(config, new ScriptedChatModel(ScriptedChatModel.tokens(tokens)), true);
+        agent.warmUp();
+        template = Payloads.parameters(Payloads.objectMapper(), "thread", "run", 1).toRunAgentParameters();
+    }
+
+    @Benchmark
+    public Long run() {
+        var threadId = "run-" + threadIds.incrementAndGet();
+        var input = RunAgentParameters.builder()
+                .threadId(threadId)
+                .runId(threadId)
+                .messages(template.getMessages())
+                .build();
+        return agent.run(input).count().block();
+    }
+}
@@ -0,0 +1,80 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Deterministic, offline {@link ChatModel} that answers every prompt with the same scripted tokens.
+ * Latency before the first token and delay between tokens are configurable, zero means no delay.
+ */
+public class ScriptedChatModel implements ChatModel {
+
+    private final List<String> tokens;
+    private final Duration firstTokenLatency;
+    private final Duration interTokenDelay;
+
+    public ScriptedChatModel(List<String> tokens, Duration firstTokenLatency, Duration interTokenDelay) {
+        this.tokens = List.copyOf(requireNonNull(tokens, "tokens cannot be null"));
+        this.firstTokenLatency = requireNonNull(firstTokenLatency, "firstTokenLatency cannot be null");
+        this.interTokenDelay = requireNonNull(interTokenDelay, "interTokenDelay cannot be null");
+    }
+
+    public ScriptedChatModel(List<String> tokens) {
+        this(tokens, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * @param count number of tokens
+     * @return {@code count} word-like tokens
+     */
+    public static List<String> tokens(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> (i == 0) ? "Token" : " token" + i)
+                .toList();
+    }
+
+    protected AssistantMessage answer(Prompt prompt, String text) {
+        return new AssistantMessage(text);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        sleep(firstTokenLatency.plus(interTokenDelay.multipliedBy(tokens.size())));
+        return new ChatResponse(List.of(new Generation(answer(prompt, String.join("", tokens)))));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        var chunks = Flux.fromIterable(tokens)
+                .map(token -> new ChatResponse(List.of(new Generation(new AssistantMessage(token)))));
+
+        if (!interTokenDelay.isZero()) {
+            chunks = chunks.delayElements(interTokenDelay);
+        }
+        if (!firstTokenLatency.isZero()) {
+            chunks = chunks.delaySubscription(firstTokenLatency);
+        }
+        return chunks;
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
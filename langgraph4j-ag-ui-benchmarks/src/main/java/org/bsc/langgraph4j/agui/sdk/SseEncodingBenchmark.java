@@ -0,0 +1,107 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.server.EventFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes allocated per event by the SSE endpoint: the {@code SseEmitter} text encoding, a formatted JSON string per
+ * event, vs. the event streamed straight into the response, through the same message converters Spring MVC uses
+ * to write the {@code data:} of each event.
+ * Run it with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, eg.
+ * <pre>
+ * java -jar benchmarks.jar SseEncodingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseEncodingBenchmark {
+
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EOL = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    // the response stream of the SSE handler, the converters write the event data into it
+    private static final class ResponseMessage implements HttpOutputMessage {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        HttpHeaders headers = new HttpHeaders();
+
+        void reset() {
+            body.reset();
+            headers = new HttpHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    @Param({"TEXT_MESSAGE_CONTENT", "RUN_STARTED"})
+    String eventType;
+
+    private ObjectMapper mapper;
+    private StringHttpMessageConverter stringConverter;
+    private AGUIEventMessageConverter eventConverter;
+    private BaseEvent event;
+    private final ResponseMessage response = new ResponseMessage();
+
+    @Setup
+    public void setup() {
+        mapper = Payloads.objectMapper();
+        stringConverter = new StringHttpMessageConverter(StandardCharsets.UTF_8);
+        eventConverter = new AGUIEventMessageConverter(mapper, new AgentMetrics(new SimpleMeterRegistry(),
+                Tags.empty(), new RunStatistics(), new ThreadRegistry(1, Duration.ZERO)));
+        var id = IdGenerator.timeOrdered().newId();
+        event = switch (eventType) {
+            case "RUN_STARTED" -> EventFactory.runStartedEvent(id, id);
+            default -> EventFactory.textMessageContentEvent(id, " token");
+        };
+    }
+
+    /**
+     * {@code SseEmitter} text encoding: the JSON string of the event, formatted, then written by the string converter
+     */
+    @Benchmark
+    public int stringData() throws IOException {
+        response.reset();
+        response.body.write(DATA);
+        stringConverter.write(" %s".formatted(mapper.writeValueAsString(event)), MediaType.TEXT_PLAIN, response);
+        response.body.write(EOL);
+        return response.body.size();
+    }
+
+    /**
+     * Direct streaming: the event itself, serialized by the event converter into the response stream
+     */
+    @Benchmark
+    public int eventData() throws IOException {
+        response.reset();
+        response.body.write(DATA);
+        eventConverter.write(event, MediaType.APPLICATION_JSON, response);
+        response.body.write(EOL);
+        return response.body.size();
+    }
+}
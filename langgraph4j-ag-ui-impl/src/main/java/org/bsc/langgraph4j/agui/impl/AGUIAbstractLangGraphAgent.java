@@ -4,19 +4,55 @@ import org.bsc.langgraph4j.action.InterruptionMetadata;
 import org.bsc.langgraph4j.agent.AgentEx;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.streaming.StreamingOutput;
-import org.bsc.langgraph4j.utils.TryFunction;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.requireNonNull;
 
 public abstract class AGUIAbstractLangGraphAgent implements AGUIAgent, LG4JLoggable {
 
+    private final AGUIAgentConfig config;
+    private final ThreadRegistry threads;
+    private volatile GraphData sharedGraph;
+
+    protected AGUIAbstractLangGraphAgent() {
+        this( AGUIAgentConfig.builder().build() );
+    }
+
+    protected AGUIAbstractLangGraphAgent( AGUIAgentConfig config ) {
+        this.config = requireNonNull( config, "config cannot be null");
+        this.threads = new ThreadRegistry( config.maxThreads(), config.threadIdleTtl() );
+        this.threads.addEvictionListener( (threadId, graphData, cause) -> releaseThread(threadId, graphData) );
+    }
 
-    private final Map<String, GraphData> graphByThread = new ConcurrentHashMap<>();
+    public AGUIAgentConfig config() {
+        return config;
+    }
+
+    public ThreadRegistry threads() {
+        return threads;
+    }
+
+    /**
+     * Releases the thread checkpoints once it has been evicted from the registry
+     *
+     * @param threadId the evicted thread
+     * @param graphData the graph used by the thread
+     */
+    protected void releaseThread( String threadId, GraphData graphData ) {
+        graphData.compiledGraph().compileConfig.checkpointSaver().ifPresent( saver -> {
+            try {
+                var tag = saver.release( RunnableConfig.builder().threadId(threadId).build() );
+                log.debug( "thread '{}' released", tag.threadId() );
+            }
+            catch( Exception ex ) {
+                log.warn( "error releasing thread '{}'", threadId, ex );
+            }
+        });
+    }
 
     protected abstract GraphData buildStateGraph() throws GraphStateException;
 
@@ -42,20 +78,63 @@ public abstract class AGUIAbstractLangGraphAgent implements AGUIAgent, LG4JLogga
         );
     }
 
-    private final AtomicReference<String> streamingId = new AtomicReference<>();
-
     protected String newMessageId() {
-        return String.valueOf(System.currentTimeMillis());
+        return config.idGenerator().newId();
+    }
+
+    /**
+     * Eagerly builds and compiles the shared graph, so the first conversation doesn't pay for it.
+     * It has no effect unless graph sharing is {@link AGUIAgentConfig.GraphSharing#SHARED}
+     *
+     * @throws GraphStateException if the graph cannot be built
+     */
+    public void warmUp() throws GraphStateException {
+        if( config.graphSharing() == AGUIAgentConfig.GraphSharing.SHARED ) {
+            sharedGraph();
+        }
+    }
+
+    private GraphData sharedGraph() throws GraphStateException {
+        var result = sharedGraph;
+        if( result == null ) {
+            synchronized (this) {
+                result = sharedGraph;
+                if( result == null ) {
+                    log.debug( "building shared graph" );
+                    result = sharedGraph = buildStateGraph();
+                }
+            }
+        }
+        return result;
+    }
+
+    private GraphData newThreadGraph( String threadId ) throws GraphStateException {
+        log.trace( "new thread '{}'", threadId );
+        return switch( config.graphSharing() ) {
+            case PER_THREAD -> buildStateGraph();
+            case SHARED -> sharedGraph().withInterruption(false);
+        };
     }
 
     @Override
     public final Flux<? extends AGUIEvent> run(AGUIType.RunAgentInput input) {
 
-        final var graphData = graphByThread.computeIfAbsent(input.threadId(),
-                TryFunction.Try(k -> buildStateGraph() ));
+        // either the run loop or the cancellation before it started unpins the thread
+        final var claimed = new AtomicBoolean();
+
+        // the thread can't be evicted, and its checkpoints released, until the run loop has exited
+        final var pinned = new AtomicBoolean();
+        final Runnable exited = () -> {
+            if( pinned.get() ) {
+                threads.unpin(input.threadId());
+            }
+        };
 
         try {
 
+            final var graphData = threads.pin(input.threadId(), this::newThreadGraph);
+            pinned.set(true);
+
             var agent = graphData.compiledGraph();
 
             var runnableConfig = RunnableConfig.builder()
@@ -81,93 +160,77 @@ public abstract class AGUIAbstractLangGraphAgent implements AGUIAgent, LG4JLogga
 
             final var outputGenerator = agent.stream( graphInput, runnableConfig );
 
+            final var runContext = new RunContext(input, this::newMessageId);
+
             var outputFlux = Flux.<AGUIEvent>create( emitter -> {
 
-                for( var event : outputGenerator ) {
+                if( !claimed.compareAndSet(false, true) ) {
+                    return;
+                }
 
-                    if (event instanceof StreamingOutput<? extends AgentState> output) {
-                        var messageId = streamingId.get();
-                        if(messageId==null) {
-                            log.trace( "STREAMING START");
-                            messageId = streamingId.updateAndGet( v -> newMessageId() );
-                            emitter.next(new AGUIEvent.TextMessageStartEvent(messageId));
-                            continue;
-                        }
-                        if( output.isStreamingEnd() ) {
-                            log.trace("STREAMING END");
-                            streamingId.set(null);
-                            emitter.next(new AGUIEvent.TextMessageEndEvent(messageId));
-                            continue;
-                        }
+                try {
+                    for( var event : outputGenerator ) {
 
-                        if( output.chunk() == null || output.chunk().isEmpty()) {
-                            log.trace( "STREAMING CHUNK IS EMPTY");
-                        }
-                        else {
-                            log.trace( "{}", output.chunk());
-                            emitter.next(new AGUIEvent.TextMessageContentEvent(messageId, output.chunk()));
+                        if (event instanceof StreamingOutput<? extends AgentState> output) {
+                            runContext.onStreamingOutput(output, emitter::next);
+                        } else {
+                            runContext.closeStreaming(emitter::next);
+
+                            log.trace( "NEXT:\n{}", event);
+                            nodeOutputToEvents(input, event).forEach( emitter::next );
                         }
-                    } else {
 
-                        log.trace( "NEXT:\n{}", event);
-                        nodeOutputToEvents(input, event).forEach( emitter::next );
                     }
 
-                }
+                    runContext.closeStreaming(emitter::next);
 
-                final var result = GraphResult.from(outputGenerator);
+                    final var result = GraphResult.from(outputGenerator);
 
-                log.trace( "COMPLETE:\n{}", result);
+                    log.trace( "COMPLETE:\n{}", result);
 
-                if( result.isInterruptionMetadata() ) {
+                    if( result.isInterruptionMetadata() ) {
 
-                    final var interruptionMetadata = result.asInterruptionMetadata();
+                        final var interruptionMetadata = result.asInterruptionMetadata();
 
-                    log.trace( "INTERRUPTION DETECTED: {}",interruptionMetadata );
+                        log.trace( "INTERRUPTION DETECTED: {}",interruptionMetadata );
 
-                    graphByThread.put(input.threadId(), graphData.withInterruption(true));
+                        threads.put(input.threadId(), graphData.withInterruption(true));
 
-                    onInterruption(input, interruptionMetadata).forEach( approval -> {
-                        emitter.next( new AGUIEvent.ToolCallStartEvent(
-                                approval.toolId(),
-                                approval.toolName(),
-                                null));
+                        onInterruption(input, interruptionMetadata)
+                                .forEach( approval -> runContext.onApproval(approval, emitter::next) );
 
-                        emitter.next( new AGUIEvent.ToolCallArgsEvent(
-                                approval.toolId(),
-                                approval.toolArgs()));
+                    }
+                    else {
+                        threads.put(input.threadId(), graphData.withInterruption(false));
 
-                        emitter.next( new AGUIEvent.ToolCallEndEvent(
-                                approval.toolId() ));
+                    }
 
-                    });
+                    emitter.complete();
 
                 }
-                else {
-                    graphByThread.put(input.threadId(), graphData.withInterruption(false));
-
-                    // Thread CleanUp
-                    //graphByThread.remove(input.threadId());
-                    //var tag = saver.release( runnableConfig );
-                    //log.debug( "thread '{}' released", tag.threadId() );
-
+                finally {
+                    exited.run();
                 }
 
-                emitter.complete();
-
             });
             return Mono.<AGUIEvent>just(
                             new AGUIEvent.RunStartedEvent( input.threadId(), input.runId())
                     )
-                    .concatWith( outputFlux.subscribeOn(Schedulers.single()) )
+                    .concatWith( outputFlux.subscribeOn(config.runScheduler()) )
                     .concatWith(
                             Mono.<AGUIEvent>just(
-                                    new AGUIEvent.RunFinishedEvent(input.threadId(), input.runId() )) );
+                                    new AGUIEvent.RunFinishedEvent(input.threadId(), input.runId() )) )
+                    .doFinally( signal -> {
+                        if( claimed.compareAndSet(false, true) ) {
+                            exited.run();
+                        }
+                    });
 
 
 
         }
         catch( Exception e ) {
+            exited.run();
             return Flux.error(e);
         }
 
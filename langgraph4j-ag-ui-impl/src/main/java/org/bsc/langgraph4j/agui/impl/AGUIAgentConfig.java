@@ -0,0 +1,125 @@
+package org.bsc.langgraph4j.agui.impl;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Runtime options of an {@link AGUIAbstractLangGraphAgent}.
+ * Instances are immutable and created through {@link #builder()}.
+ */
+public final class AGUIAgentConfig {
+
+    /**
+     * Defines how compiled graphs are shared among conversation threads
+     */
+    public enum GraphSharing {
+        /**
+         * a new graph is built and compiled for each new thread
+         */
+        PER_THREAD,
+        /**
+         * the graph is built and compiled once and reused by every thread.
+         * Per-thread state lives only in the checkpoint saver
+         */
+        SHARED
+    }
+
+    private final GraphSharing graphSharing;
+    private final Scheduler runScheduler;
+    private final IdGenerator idGenerator;
+    private final int maxThreads;
+    private final Duration threadIdleTtl;
+
+    private AGUIAgentConfig(Builder builder) {
+        this.graphSharing = builder.graphSharing;
+        this.runScheduler = builder.runScheduler;
+        this.idGenerator = builder.idGenerator;
+        this.maxThreads = builder.maxThreads;
+        this.threadIdleTtl = builder.threadIdleTtl;
+    }
+
+    public GraphSharing graphSharing() {
+        return graphSharing;
+    }
+
+    /**
+     * @return the scheduler on which the graph execution loop runs
+     * @see RunSchedulers
+     */
+    public Scheduler runScheduler() {
+        return runScheduler;
+    }
+
+    /**
+     * @return the generator of message and tool call ids
+     */
+    public IdGenerator idGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * @return max number of conversation threads kept by the agent
+     * @see ThreadRegistry
+     */
+    public int maxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @return max idle time of a conversation thread, {@link Duration#ZERO} means no expiration
+     * @see ThreadRegistry
+     */
+    public Duration threadIdleTtl() {
+        return threadIdleTtl;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private GraphSharing graphSharing = GraphSharing.PER_THREAD;
+        private Scheduler runScheduler = Schedulers.boundedElastic();
+        private IdGenerator idGenerator = IdGenerator.timeOrdered();
+        private int maxThreads = 10_000;
+        private Duration threadIdleTtl = Duration.ofHours(1);
+
+        private Builder() {}
+
+        public Builder graphSharing(GraphSharing graphSharing) {
+            this.graphSharing = requireNonNull(graphSharing, "graphSharing cannot be null");
+            return this;
+        }
+
+        public Builder runScheduler(Scheduler runScheduler) {
+            this.runScheduler = requireNonNull(runScheduler, "runScheduler cannot be null");
+            return this;
+        }
+
+        public Builder idGenerator(IdGenerator idGenerator) {
+            this.idGenerator = requireNonNull(idGenerator, "idGenerator cannot be null");
+            return this;
+        }
+
+        public Builder maxThreads(int maxThreads) {
+            if (maxThreads <= 0) {
+                throw new IllegalArgumentException("maxThreads must be greater than 0");
+            }
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        public Builder threadIdleTtl(Duration threadIdleTtl) {
+            this.threadIdleTtl = requireNonNull(threadIdleTtl, "threadIdleTtl cannot be null");
+            return this;
+        }
+
+        public AGUIAgentConfig build() {
+            return new AGUIAgentConfig(this);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.bsc.langgraph4j.agui.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Compact serializers of the {@link AGUIEvent} records.
+ * Each one writes its fields straight to the {@link JsonGenerator}, in record order and skipping nulls as
+ * {@code @JsonInclude(NON_NULL)} does, without going through the reflective polymorphic bean serializer.
+ * The {@code type} property is written by the serializer itself, so the type id handling is a no-op.
+ */
+public final class AGUIEventSerializers {
+
+    @FunctionalInterface
+    interface FieldsWriter<T> {
+        void write(T event, JsonGenerator gen, SerializerProvider provider) throws IOException;
+    }
+
+    static final class EventSerializer<T extends AGUIEvent> extends StdSerializer<T> {
+
+        private final FieldsWriter<T> fieldsWriter;
+
+        EventSerializer(Class<T> type, FieldsWriter<T> fieldsWriter) {
+            super(type);
+            this.fieldsWriter = fieldsWriter;
+        }
+
+        @Override
+        public void serialize(T event, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("type", event.type().name());
+            if (event.timestamp() != null) {
+                gen.writeNumberField("timestamp", event.timestamp());
+            }
+            fieldsWriter.write(event, gen, provider);
+            gen.writeEndObject();
+        }
+
+        @Override
+        public void serializeWithType(T event, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+            serialize(event, gen, provider);
+        }
+    }
+
+    private AGUIEventSerializers() {}
+
+    private static void writeString(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    private static void writeObject(JsonGenerator gen, SerializerProvider provider, String name, Object value) throws IOException {
+        if (value != null) {
+            provider.defaultSerializeField(name, value, gen);
+        }
+    }
+
+    private static <T extends AGUIEvent> void add(SimpleModule module, Class<T> type, FieldsWriter<T> fieldsWriter) {
+        module.addSerializer(type, new EventSerializer<>(type, fieldsWriter));
+    }
+
+    /**
+     * @return a Jackson module registering the serializers of all the event records
+     */
+    public static SimpleModule module() {
+        final var module = new SimpleModule("AGUIEventSerializers");
+
+        add(module, AGUIEvent.TextMessageStartEvent.class, (e, gen, provider) -> {
+            writeString(gen, "message_id", e.messageId());
+            writeString(gen, "role", e.role());
+        });
+        add(module, AGUIEvent.TextMessageContentEvent.class, (e, gen, provider) -> {
+            writeString(gen, "message_id", e.messageId());
+            writeString(gen, "delta", e.delta());
+        });
+        add(module, AGUIEvent.TextMessageEndEvent.class, (e, gen, provider) ->
+            writeString(gen, "message_id", e.messageId()));
+        add(module, AGUIEvent.ToolCallStartEvent.class, (e, gen, provider) -> {
+            writeString(gen, "tool_call_id", e.toolCallId());
+            writeString(gen, "tool_call_name", e.toolCallName());
+            writeString(gen, "parent_message_id", e.parentMessageId());
+        });
+        add(module, AGUIEvent.ToolCallArgsEvent.class, (e, gen, provider) -> {
+            writeString(gen, "tool_call_id", e.toolCallId());
+            writeString(gen, "tool_call_args", e.args());
+        });
+        add(module, AGUIEvent.ToolCallEndEvent.class, (e, gen, provider) ->
+            writeString(gen, "tool_call_id", e.toolCallId()));
+        add(module, AGUIEvent.ToolCallChunkEvent.class, (e, gen, provider) -> {
+            writeString(gen, "tool_call_id", e.toolCallId());
+            writeString(gen, "tool_call_name", e.toolCallName());
+            writeString(gen, "parent_message_id", e.parentMessageId());
+            writeString(gen, "delta", e.delta());
+        });
+        add(module, AGUIEvent.StateSnapshotEvent.class, (e, gen, provider) ->
+            writeObject(gen, provider, "snapshot", e.snapshot()));
+        add(module, AGUIEvent.StateDeltaEvent.class, (e, gen, provider) ->
+            writeObject(gen, provider, "delta", e.delta()));
+        add(module, AGUIEvent.MessagesSnapshotEvent.class, (e, gen, provider) ->
+            writeObject(gen, provider, "messages", e.messages()));
+        add(module, AGUIEvent.CustomEvent.class, (e, gen, provider) -> {
+            writeString(gen, "name", e.name());
+            writeObject(gen, provider, "value", e.value());
+        });
+        add(module, AGUIEvent.RunStartedEvent.class, (e, gen, provider) -> {
+            writeString(gen, "thread_id", e.threadId());
+            writeString(gen, "run_id", e.runId());
+        });
+        add(module, AGUIEvent.RunFinishedEvent.class, (e, gen, provider) -> {
+            writeString(gen, "thread_id", e.threadId());
+            writeString(gen, "run_id", e.runId());
+        });
+        add(module, AGUIEvent.RunErrorEvent.class, (e, gen, provider) -> {
+            writeString(gen, "message", e.message());
+            writeString(gen, "code", e.code());
+        });
+        add(module, AGUIEvent.StepStartedEvent.class, (e, gen, provider) ->
+            writeString(gen, "step_name", e.stepName()));
+        add(module, AGUIEvent.StepFinishedEvent.class, (e, gen, provider) ->
+            writeString(gen, "step_name", e.stepName()));
+
+        return module;
+    }
+}
@@ -1,11 +1,11 @@
 package org.bsc.langgraph4j.agui.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.LocalTime;
@@ -15,21 +15,26 @@ import java.time.LocalTime;
 public class AGUISSEController {
 
     final AGUIAgent uiAgent;
-    final ObjectMapper mapper = new ObjectMapper();
 
     public AGUISSEController( @Qualifier("AGUIAgent")   AGUIAgent uiAgent) {
         this.uiAgent = uiAgent;
     }
 
+    /**
+     * Runs the agent and streams its events.
+     * The RunAgentInput is decoded by the application Jackson codec straight from the request body buffers,
+     * with the non-blocking parser, so the payload is neither copied into a String nor parsed on a blocking call.
+     *
+     * @param input the decoded RunAgentInput
+     * @return the run events
+     */
     @PostMapping(path = "/copilotkit",
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.TEXT_EVENT_STREAM_VALUE
             )
-    public Flux<? extends AGUIEvent> copilotKit(@RequestBody String runAgentInputPayload) throws Exception {
-
-        var input = mapper.readValue(runAgentInputPayload, AGUIType.RunAgentInput.class);
+    public Flux<? extends AGUIEvent> copilotKit(@RequestBody Mono<AGUIType.RunAgentInput> input) {
 
-        return uiAgent.run( input );
+        return input.flatMapMany( uiAgent::run );
     }
 
     /**
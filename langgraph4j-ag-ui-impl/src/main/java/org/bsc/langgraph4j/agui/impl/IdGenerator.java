@@ -0,0 +1,34 @@
+package org.bsc.langgraph4j.agui.impl;
+
+/**
+ * Strategy used by the agent to generate message and tool call ids.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * @return a new unique id
+     */
+    String newId();
+
+    /**
+     * Time-ordered 128 bit ids: 48 bit of epoch millis plus 16 bit of sequence, followed by a 64 bit node component
+     * randomly chosen once per JVM. Ids are monotonic within the JVM and unique across runs and nodes.
+     *
+     * @return the JVM wide time-ordered generator
+     */
+    static IdGenerator timeOrdered() {
+        return TimeOrderedIdGenerator.DEFAULT;
+    }
+
+    /**
+     * Time-ordered 128 bit ids with an explicit node component
+     *
+     * @param nodeId the node component, it must be unique among the nodes serving the same clients
+     * @return a new time-ordered generator
+     * @see #timeOrdered()
+     */
+    static IdGenerator timeOrdered( long nodeId ) {
+        return new TimeOrderedIdGenerator(nodeId);
+    }
+}
@@ -0,0 +1,88 @@
+package org.bsc.langgraph4j.agui.impl;
+
+import org.bsc.langgraph4j.LG4JLoggable;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.streaming.StreamingOutput;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * State of a single agent run.
+ * It holds the streaming text message state machine and it is confined to the thread draining the graph output,
+ * so it is never shared among runs.
+ */
+final class RunContext implements LG4JLoggable {
+
+    private final AGUIType.RunAgentInput input;
+    private final Supplier<String> messageIdSupplier;
+    private String streamingMessageId;
+
+    RunContext(AGUIType.RunAgentInput input, Supplier<String> messageIdSupplier) {
+        this.input = requireNonNull(input, "input cannot be null");
+        this.messageIdSupplier = requireNonNull(messageIdSupplier, "messageIdSupplier cannot be null");
+    }
+
+    AGUIType.RunAgentInput input() {
+        return input;
+    }
+
+    String newMessageId() {
+        return messageIdSupplier.get();
+    }
+
+    boolean isStreaming() {
+        return streamingMessageId != null;
+    }
+
+    void onStreamingOutput(StreamingOutput<? extends AgentState> output, Consumer<AGUIEvent> emitter) {
+
+        if( output.isStreamingEnd() ) {
+            log.trace("STREAMING END");
+            closeStreaming(emitter);
+            return;
+        }
+
+        if( streamingMessageId == null ) {
+            log.trace( "STREAMING START");
+            streamingMessageId = newMessageId();
+            emitter.accept(new AGUIEvent.TextMessageStartEvent(streamingMessageId));
+        }
+
+        if( output.chunk() == null || output.chunk().isEmpty()) {
+            log.trace( "STREAMING CHUNK IS EMPTY");
+        }
+        else {
+            log.trace( "{}", output.chunk());
+            emitter.accept(new AGUIEvent.TextMessageContentEvent(streamingMessageId, output.chunk()));
+        }
+    }
+
+    /**
+     * Ends the pending streaming message, if any
+     *
+     * @param emitter the events consumer
+     */
+    void closeStreaming(Consumer<AGUIEvent> emitter) {
+        if( streamingMessageId != null ) {
+            emitter.accept(new AGUIEvent.TextMessageEndEvent(streamingMessageId));
+            streamingMessageId = null;
+        }
+    }
+
+    void onApproval(Approval approval, Consumer<AGUIEvent> emitter) {
+        emitter.accept( new AGUIEvent.ToolCallStartEvent(
+                approval.toolId(),
+                approval.toolName(),
+                null));
+
+        emitter.accept( new AGUIEvent.ToolCallArgsEvent(
+                approval.toolId(),
+                approval.toolArgs()));
+
+        emitter.accept( new AGUIEvent.ToolCallEndEvent(
+                approval.toolId() ));
+    }
+}
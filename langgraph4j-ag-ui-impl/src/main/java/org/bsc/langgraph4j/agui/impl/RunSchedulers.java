@@ -0,0 +1,64 @@
+package org.bsc.langgraph4j.agui.impl;
+
+import org.bsc.langgraph4j.LG4JLoggable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Factory of the execution strategies available to run the graph loop.
+ * The selected {@link Scheduler} is set through {@link AGUIAgentConfig.Builder#runScheduler(Scheduler)}
+ */
+public final class RunSchedulers implements LG4JLoggable {
+
+    private RunSchedulers() {}
+
+    /**
+     * Each run is executed on its own virtual thread.
+     * Virtual threads require Java 21+, on older runtimes it falls back to {@link Schedulers#boundedElastic()}
+     *
+     * @return the scheduler
+     */
+    public static Scheduler virtualThreadPerRun() {
+        try {
+            var factory = MethodHandles.publicLookup().findStatic( java.util.concurrent.Executors.class,
+                    "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+
+            var executor = (ExecutorService) factory.invoke();
+
+            return Schedulers.fromExecutorService( executor, "agui-run-vt" );
+        }
+        catch( Throwable ex ) {
+            log.warn( "virtual threads are not supported by current runtime ({}). fallback to bounded elastic",
+                    Runtime.version() );
+            return Schedulers.boundedElastic();
+        }
+    }
+
+    /**
+     * Runs are executed on a bounded pool of platform threads.
+     * Runs exceeding {@code threadCap} are queued up to {@code queuedTaskCap}, then rejected
+     *
+     * @param threadCap max number of concurrent runs
+     * @param queuedTaskCap max number of runs waiting for a thread
+     * @return the scheduler
+     */
+    public static Scheduler boundedElastic( int threadCap, int queuedTaskCap ) {
+        return Schedulers.newBoundedElastic( threadCap, queuedTaskCap, "agui-run", 60, true );
+    }
+
+    /**
+     * Runs are executed on the thread that subscribes the event stream.
+     * Use it only when the caller is allowed to block (eg. servlet thread)
+     *
+     * @return the scheduler
+     */
+    public static Scheduler callerThread() {
+        return Schedulers.immediate();
+    }
+
+}
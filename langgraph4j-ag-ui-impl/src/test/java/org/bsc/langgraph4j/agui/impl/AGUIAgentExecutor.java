@@ -26,6 +26,10 @@ public class AGUIAgentExecutor extends AGUIAbstractLangGraphAgent {
 
     public AGUIAgentExecutor() {}
 
+    public AGUIAgentExecutor(AGUIAgentConfig config) {
+        super(config);
+    }
+
     @Override
     protected GraphData buildStateGraph() throws GraphStateException {
 
@@ -82,7 +86,7 @@ public class AGUIAgentExecutor extends AGUIAbstractLangGraphAgent {
                 .map( toolCalls ->
                     toolCalls.stream().map( toolCall -> {
                         var id = toolCall.id().isBlank() ?
-                                UUID.randomUUID().toString() :
+                                newMessageId() :
                                 toolCall.id();
                         return new Approval( id, toolCall.name(), toolCall.arguments() );
                     }).toList()
@@ -1,5 +1,6 @@
 package org.bsc.langgraph4j.agui.impl;
 
+import com.fasterxml.jackson.databind.Module;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -10,8 +11,15 @@ public class AGUIApplication {
 
 	@Bean("AGUIAgent")
 	@ConditionalOnProperty(name = "ag-ui.agent", havingValue = "agentExecutor")
-    AGUIAgent createAgentExecutor() {
-		return new AGUIAgentExecutor();
+    AGUIAgent createAgentExecutor() throws Exception {
+		var config = AGUIAgentConfig.builder()
+				.graphSharing(AGUIAgentConfig.GraphSharing.SHARED)
+				.runScheduler(RunSchedulers.virtualThreadPerRun())
+				.build();
+
+		var agent = new AGUIAgentExecutor(config);
+		agent.warmUp();
+		return agent;
 	}
 
 	@Bean("AGUIAgent")
@@ -20,6 +28,14 @@ public class AGUIApplication {
 		return new AGUISampleAgent();
 	}
 
+	/**
+	 * Compact serializers of the AG-UI events, registered by Spring Boot into the application mapper
+	 */
+	@Bean
+	Module aguiEventSerializers() {
+		return AGUIEventSerializers.module();
+	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(AGUIApplication.class, args);
 	}
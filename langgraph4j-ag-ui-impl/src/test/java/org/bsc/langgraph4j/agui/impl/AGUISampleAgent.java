@@ -13,7 +13,7 @@ public class AGUISampleAgent implements AGUIAgent {
                     input.threadId(),
                     input.runId()) );
 
-            var messageId = String.valueOf(System.currentTimeMillis());
+            var messageId = IdGenerator.timeOrdered().newId();
 
             emitter.next( new AGUIEvent.TextMessageStartEvent(messageId) );
 
@@ -5,30 +5,102 @@ import com.agui.core.event.BaseEvent;
 import com.agui.core.message.BaseMessage;
 import com.agui.core.message.Role;
 import com.agui.server.EventFactory;
+import org.bsc.async.AsyncGenerator;
 import org.bsc.langgraph4j.*;
 import org.bsc.langgraph4j.action.InterruptionMetadata;
 import org.bsc.langgraph4j.agent.AgentEx;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.streaming.StreamingOutput;
-import org.bsc.langgraph4j.utils.TryFunction;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.util.Objects.requireNonNull;
 import static org.bsc.langgraph4j.utils.CollectionsUtils.lastOf;
 
 public abstract class AGUIAbstractLangGraphAgent implements LG4JLoggable {
 
+    private final AGUIAgentConfig config;
+    private final ThreadRegistry threads;
+    private final RunStatistics statistics = new RunStatistics();
+    private final AgentMetrics metrics;
+    private final RunReplayBuffer replayBuffer;
+    private final ThreadRunLanes lanes;
+    private final AdmissionController admission;
+    private volatile GraphData sharedGraph;
+
+    protected AGUIAbstractLangGraphAgent() {
+        this( AGUIAgentConfig.builder().build() );
+    }
+
+    protected AGUIAbstractLangGraphAgent( AGUIAgentConfig config ) {
+        this.config = requireNonNull( config, "config cannot be null");
+        this.threads = new ThreadRegistry( config.maxThreads(), config.threadIdleTtl() );
+        this.threads.addEvictionListener( (threadId, graphData, cause) -> releaseThread(threadId, graphData) );
+        this.metrics = new AgentMetrics( config.meterRegistry(), config.metricsTags(), statistics, threads );
+        this.replayBuffer = config.replay().map(RunReplayBuffer::new).orElse(null);
+        this.lanes = new ThreadRunLanes( config.concurrentRunPolicy() );
+        this.admission = config.admission()
+                .map( policy -> new AdmissionController( policy, metrics::admissionWaited ) )
+                .orElse(null);
+        if( admission != null ) {
+            metrics.bindAdmission( admission );
+        }
+    }
+
+    public AGUIAgentConfig config() {
+        return config;
+    }
+
+    public ThreadRegistry threads() {
+        return threads;
+    }
+
+    public RunStatistics statistics() {
+        return statistics;
+    }
+
+    public AgentMetrics metrics() {
+        return metrics;
+    }
 
-    private final Map<String, GraphData> graphByThread = new ConcurrentHashMap<>();
-    private final AtomicReference<String> streamingId = new AtomicReference<>();
+    /**
+     * @return the admission control of the runs, if enabled
+     */
+    public Optional<AdmissionController> admission() {
+        return Optional.ofNullable(admission);
+    }
+
+    /**
+     * @return the buffer of the run events for the SSE reconnection, if enabled
+     */
+    public Optional<RunReplayBuffer> replayBuffer() {
+        return Optional.ofNullable(replayBuffer);
+    }
+
+    /**
+     * Releases the thread checkpoints once it has been evicted from the registry, a thread with a run in progress
+     * is not evicted
+     *
+     * @param threadId the evicted thread
+     * @param graphData the graph used by the thread
+     */
+    protected void releaseThread( String threadId, GraphData graphData ) {
+        graphData.compiledGraph().compileConfig.checkpointSaver().ifPresent( saver -> {
+            try {
+                var tag = saver.release( RunnableConfig.builder().threadId(threadId).build() );
+                log.debug( "thread '{}' released", tag.threadId() );
+            }
+            catch( Exception ex ) {
+                log.warn( "error releasing thread '{}'", threadId, ex );
+            }
+        });
+    }
 
     protected abstract GraphData buildStateGraph() throws GraphStateException;
 
@@ -37,7 +109,7 @@ public abstract class AGUIAbstractLangGraphAgent implements LG4JLoggable {
     protected abstract <S extends AgentState> List<Approval> onInterruption(RunAgentParameters input, InterruptionMetadata<S> state);
 
     protected String newMessageId() {
-        return String.valueOf(System.currentTimeMillis());
+        return config.idGenerator().newId();
     }
 
     protected Optional<String> nodeOutputToText(NodeOutput<? extends AgentState> output) {
@@ -60,13 +132,249 @@ public abstract class AGUIAbstractLangGraphAgent implements LG4JLoggable {
 
 
 
+    /**
+     * Eagerly builds and compiles the shared graph, so the first conversation doesn't pay for it.
+     * It has no effect unless graph sharing is {@link AGUIAgentConfig.GraphSharing#SHARED}
+     *
+     * @throws GraphStateException if the graph cannot be built
+     */
+    public void warmUp() throws GraphStateException {
+        if( config.graphSharing() == AGUIAgentConfig.GraphSharing.SHARED ) {
+            sharedGraph();
+        }
+    }
+
+    private GraphData sharedGraph() throws GraphStateException {
+        var result = sharedGraph;
+        if( result == null ) {
+            synchronized (this) {
+                result = sharedGraph;
+                if( result == null ) {
+                    log.debug( "building shared graph" );
+                    result = sharedGraph = buildStateGraph();
+                }
+            }
+        }
+        return result;
+    }
+
+    private GraphData newThreadGraph( String threadId ) throws GraphStateException {
+        log.trace( "new thread '{}'", threadId );
+        return switch( config.graphSharing() ) {
+            case PER_THREAD -> buildStateGraph();
+            case SHARED -> sharedGraph().withInterruption(false);
+        };
+    }
+
+    private void cancel( AsyncGenerator<?> generator ) {
+        if( generator instanceof AsyncGenerator.Cancellable<?> cancellable ) {
+            cancellable.cancel(true);
+        }
+    }
+
+    /**
+     * Runs the graph on the input thread.
+     * When the {@link RunReplayBuffer} is enabled runs are idempotent: a run id already in flight, or recently finished,
+     * is not executed again and the returned events are the ones of the existing run.
+     *
+     * @param input the run input
+     * @return the run events
+     */
     public final Flux<? extends BaseEvent> run(RunAgentParameters input) {
+        return run(input, null);
+    }
+
+    /**
+     * Same as {@link #run(RunAgentParameters)}, on behalf of the given tenant
+     *
+     * @param input the run input
+     * @param tenant the tenant given by the transport, if {@code null} it is taken from the {@code forwardedProps}
+     * @return the run events
+     * @see AdmissionPolicy
+     */
+    public final Flux<? extends BaseEvent> run(RunAgentParameters input, String tenant) {
+        if( replayBuffer == null || input.getRunId() == null ) {
+            return execute(input, tenant);
+        }
+        return runSequenced(input, tenant).map(SequencedEvent::event);
+    }
+
+    /**
+     * Same as {@link #run(RunAgentParameters)}, events carry their sequence id within the run
+     *
+     * @param input the run input
+     * @return the sequenced run events
+     */
+    public final Flux<SequencedEvent> runSequenced(RunAgentParameters input) {
+        return runSequenced(input, null);
+    }
+
+    /**
+     * Same as {@link #run(RunAgentParameters, String)}, events carry their sequence id within the run
+     *
+     * @param input the run input
+     * @param tenant the tenant given by the transport, if {@code null} it is taken from the {@code forwardedProps}
+     * @return the sequenced run events
+     */
+    public final Flux<SequencedEvent> runSequenced(RunAgentParameters input, String tenant) {
+        if( replayBuffer == null || input.getRunId() == null ) {
+            return execute(input, tenant).index( (index, event) -> new SequencedEvent(index + 1, event) );
+        }
+        try {
+            return replayBuffer.run( runKey(input), () -> execute(input, tenant), statistics::runDuplicated );
+        }
+        catch( RunReplayBuffer.ReplayGapException ex ) {
+            return Flux.error(ex);
+        }
+    }
+
+    /**
+     * Resumes a buffered run after the last event received by the client
+     *
+     * @param input the run input
+     * @param lastEventId the last event received
+     * @return the following events, empty if the run is not buffered
+     * @throws RunReplayBuffer.ReplayGapException if the following events are no longer buffered
+     */
+    public final Optional<Flux<SequencedEvent>> resume(RunAgentParameters input, long lastEventId) {
+        if( replayBuffer == null || input.getRunId() == null ) {
+            return Optional.empty();
+        }
+        return replayBuffer.resume( runKey(input), lastEventId );
+    }
+
+    // run ids are generated by the client, they are scoped by thread
+    private static String runKey(RunAgentParameters input) {
+        return input.getThreadId() + '/' + input.getRunId();
+    }
+
+    // runs of the same thread, sharing its checkpoint, are serialized by the thread lanes, then admitted:
+    // a run waiting for its thread doesn't hold a place in the admission queue
+    private Flux<? extends BaseEvent> execute(RunAgentParameters input, String tenant) {
+        return lanes.submit( input.getThreadId(),
+                release -> admitted(input, tenant, release),
+                () -> rejected(input),
+                started -> superseded(input, started) );
+    }
+
+    /**
+     * @param release releases the thread lane, invoked once the execution has ended or will never start
+     */
+    private Flux<BaseEvent> admitted(RunAgentParameters input, String tenant, Runnable release) {
+        if( admission == null ) {
+            return execute(input, release);
+        }
+        // once admitted, the execution releases both its slot and the lane
+        final var executed = new AtomicBoolean();
+        return admission.admit( tenant(input, tenant), priority(input),
+                        slot -> {
+                            executed.set(true);
+                            return execute(input, () -> {
+                                slot.run();
+                                release.run();
+                            });
+                        },
+                        rejection -> overloaded(input, rejection) )
+                .doFinally( signal -> {
+                    if( !executed.get() ) {
+                        release.run();
+                    }
+                });
+    }
+
+    // a user waiting on an approval first, then follow-ups of known threads, then new threads
+    private RunPriority priority(RunAgentParameters input) {
+        return threads.get(input.getThreadId())
+                .map( graphData -> graphData.interruption() ? RunPriority.RESUME : RunPriority.FOLLOW_UP )
+                .orElse( RunPriority.NEW );
+    }
+
+    private String tenant(RunAgentParameters input, String tenant) {
+        if( tenant != null && !tenant.isBlank() ) {
+            return tenant;
+        }
+        if( input.getForwardedProps() instanceof Map<?,?> props
+                && props.get(admission.policy().tenantKey()) instanceof String value
+                && !value.isBlank() ) {
+            return value;
+        }
+        return AdmissionPolicy.DEFAULT_TENANT;
+    }
+
+    private Flux<BaseEvent> overloaded(RunAgentParameters input, AdmissionController.Rejection rejection) {
+        final var retryAfterMs = rejection.retryAfter().toMillis();
+        final var error = EventFactory.runErrorEvent(
+                "agent overloaded, retry after %d ms".formatted(retryAfterMs));
+        error.setRawEvent(Map.of(
+                "code", rejection.cause().name(),
+                "retryAfterMs", retryAfterMs));
+        return Flux.<BaseEvent>just(
+                        EventFactory.runStartedEvent(input.getThreadId(), input.getRunId()),
+                        error)
+                .doOnNext(metrics::onEvent);
+    }
+
+    private Flux<BaseEvent> rejected(RunAgentParameters input) {
+        statistics.runRejected();
+        final var error = EventFactory.runErrorEvent(
+                "thread '%s' has a run in progress".formatted(input.getThreadId()));
+        error.setRawEvent(Map.of("code", "THREAD_BUSY"));
+        return Flux.<BaseEvent>just(
+                        EventFactory.runStartedEvent(input.getThreadId(), input.getRunId()),
+                        error)
+                .doOnNext(metrics::onEvent);
+    }
+
+    private Flux<BaseEvent> superseded(RunAgentParameters input, boolean started) {
+        final var error = EventFactory.runErrorEvent(
+                "run '%s' superseded by a newer run on thread '%s'".formatted(input.getRunId(), input.getThreadId()));
+        error.setRawEvent(Map.of("code", "SUPERSEDED"));
+        final var events = started ?
+                Flux.<BaseEvent>just(error) :
+                Flux.<BaseEvent>just(EventFactory.runStartedEvent(input.getThreadId(), input.getRunId()), error);
+        return events.doOnNext(metrics::onEvent);
+    }
+
+    private Flux<BaseEvent> historyUnavailable(RunAgentParameters input) {
+        log.debug( "thread '{}' evicted after its request was read without history", input.getThreadId() );
+        final var error = EventFactory.runErrorEvent(
+                "thread '%s' history is no longer available, send the whole conversation".formatted(input.getThreadId()));
+        error.setRawEvent(Map.of("code", "HISTORY_UNAVAILABLE"));
+        return Flux.<BaseEvent>just(
+                        EventFactory.runStartedEvent(input.getThreadId(), input.getRunId()),
+                        error)
+                .doOnNext(metrics::onEvent);
+    }
 
-        final var graphData = graphByThread.computeIfAbsent(input.getThreadId(),
-                TryFunction.Try(k -> buildStateGraph()));
+    /**
+     * @param release releases the thread lane, invoked once the execution has ended or will never start
+     */
+    private Flux<BaseEvent> execute(RunAgentParameters input, Runnable release) {
+
+        // either the run loop or the cancellation before it started releases the lane
+        final var claimed = new AtomicBoolean();
+
+        // the thread can't be evicted, and its checkpoints released, until the run loop has exited
+        final var pinned = new AtomicBoolean();
+        final Runnable exited = () -> {
+            if( pinned.get() ) {
+                threads.unpin(input.getThreadId());
+            }
+            release.run();
+        };
 
         try {
 
+            // the request was read without the history the thread checkpoint holds, the thread must still be there
+            final var graphData = MessageTail.skipped(input.getMessages()) > 0 ?
+                    threads.pinIfPresent(input.getThreadId()).orElse(null) :
+                    threads.pin(input.getThreadId(), this::newThreadGraph);
+            if( graphData == null ) {
+                exited.run();
+                return historyUnavailable(input);
+            }
+            pinned.set(true);
+
             var agent = graphData.compiledGraph();
 
             var runnableConfig = RunnableConfig.builder()
@@ -92,96 +400,131 @@ public abstract class AGUIAbstractLangGraphAgent implements LG4JLoggable {
 
             final var outputGenerator = agent.stream(graphInput, runnableConfig);
 
-            var outputFlux = Flux.<BaseEvent>create(emitter -> {
+            final var runContext = new RunContext(input, this::newMessageId, config.stepEvents());
 
-                for (var event : outputGenerator) {
+            final var stateTracker = config.stateSync().map(StateTracker::new).orElse(null);
 
-                    if (event instanceof StreamingOutput<? extends AgentState> output) {
-                        var messageId = streamingId.get();
-                        if(messageId==null) {
-                            log.trace( "STREAMING START");
-                            messageId = streamingId.updateAndGet( v -> newMessageId() );
-                            emitter.next(EventFactory.textMessageStartEvent(messageId, Role.assistant.name()));
-                            continue;
-                        }
-                        if( output.isStreamingEnd() ) { // is streaming out ended
-                            log.trace("STREAMING END");
-                            streamingId.set(null);
-                            emitter.next(EventFactory.textMessageEndEvent(messageId));
-                            continue;
-                        }
+            var outputFlux = Flux.<BaseEvent>create(sink -> {
 
-                        if( output.chunk() == null || output.chunk().isEmpty()) {
-                            log.trace( "STREAMING CHUNK IS EMPTY");
-                        }
-                        else {
-                            log.trace( "{}", output.chunk());
-                            emitter.next(EventFactory.textMessageContentEvent(messageId, output.chunk()));
-                        }
-                    } else {
+                if( !claimed.compareAndSet(false, true) ) {
+                    return;
+                }
 
-                        log.trace( "NEXT:\n{}", event);
-                        nodeOutputToEvents(input, event).forEach( emitter::next );
-                    }
+                // stop pulling from the graph and abort the in-flight node (eg. model call) when the client goes away
+                final var emitter = new EventBridge( sink,
+                        config.backpressurePolicy(),
+                        config.coalescingPolicy().orElse(null),
+                        () -> cancel(outputGenerator) );
 
+                final var sample = metrics.startRun();
+                runContext.start();
+                var outcome = AgentMetrics.Outcome.FAILED;
+
+                if( graphData.interruption() ) {
+                    metrics.interruptionResumed();
                 }
 
-                final var result = GraphResult.from(outputGenerator);
+                try {
+                    try {
+                        for (var event : outputGenerator) {
+
+                            if( emitter.isCancelled() ) {
+                                statistics.nodeOutputSkipped();
+                                break;
+                            }
+
+                            if (event instanceof StreamingOutput<? extends AgentState> output) {
+                                if( !output.isStreamingEnd() && output.chunk() != null && !output.chunk().isEmpty() ) {
+                                    sample.onToken();
+                                }
+                                runContext.enterStep(output.node(), false, emitter);
+                                runContext.onStreamingOutput(output, emitter);
+                            } else {
+                                sample.onNodeOutput(event);
+                                runContext.closeStreaming(emitter);
+                                runContext.enterStep(event.node(), true, emitter);
+
+                                log.trace( "NEXT:\n{}", event);
+                                nodeOutputToEvents(input, event).forEach( emitter );
+
+                                if( stateTracker != null ) {
+                                    stateTracker.onNodeOutput(event, emitter);
+                                }
+                                runContext.exitStep(emitter);
+                            }
+
+                        }
+                    }
+                    catch( RuntimeException ex ) {
+                        if( !emitter.isCancelled() ) {
+                            cancel(outputGenerator);
+                            throw ex;
+                        }
+                        log.trace( "error after cancellation", ex );
+                    }
 
-                log.trace("COMPLETE:\n{}", result);
+                    if( emitter.isCancelled() ) {
+                        // the thread keeps the last checkpoint, so a new run can resume from it
+                        log.debug( "run '{}' on thread '{}' cancelled", input.getRunId(), input.getThreadId() );
+                        statistics.runCancelled( runContext.isStreaming() );
+                        outcome = AgentMetrics.Outcome.CANCELLED;
+                        return;
+                    }
 
-                if (result.isInterruptionMetadata()) {
+                    runContext.closeStreaming(emitter);
+                    runContext.closeStep(emitter);
 
-                    final var interruptionMetadata = result.asInterruptionMetadata();
+                    final var result = GraphResult.from(outputGenerator);
 
-                    log.trace("INTERRUPTION DETECTED: {}", interruptionMetadata);
+                    log.trace("COMPLETE:\n{}", result);
 
-                    graphByThread.put(input.getThreadId(), graphData.withInterruption(true));
+                    if (result.isInterruptionMetadata()) {
 
-                    onInterruption(input, interruptionMetadata).forEach(approval -> {
-                        final var messageId = newMessageId();
+                        final var interruptionMetadata = result.asInterruptionMetadata();
 
-                        emitter.next(EventFactory.toolCallStartEvent(
-                                messageId,
-                                approval.toolName(),
-                                approval.toolId()
-                                ));
+                        log.trace("INTERRUPTION DETECTED: {}", interruptionMetadata);
 
-                        emitter.next(EventFactory.toolCallArgsEvent(
-                                approval.toolArgs(),
-                                approval.toolId()
-                                ));
+                        threads.put(input.getThreadId(), graphData.withInterruption(true));
 
-                        emitter.next(EventFactory.toolCallEndEvent(
-                                approval.toolId()));
+                        onInterruption(input, interruptionMetadata)
+                                .forEach(approval -> runContext.onApproval(approval, emitter));
 
-                    });
+                        metrics.interruptionRaised();
+                        outcome = AgentMetrics.Outcome.INTERRUPTED;
 
-                } else {
-                    graphByThread.put(input.getThreadId(), graphData.withInterruption(false));
+                    } else {
+                        threads.put(input.getThreadId(), graphData.withInterruption(false));
 
-                    // Thread CleanUp
-                    //graphByThread.remove(input.threadId());
-                    //var tag = saver.release( runnableConfig );
-                    //log.debug( "thread '{}' released", tag.threadId() );
+                        outcome = AgentMetrics.Outcome.COMPLETED;
+                    }
 
+                    emitter.complete();
+                }
+                finally {
+                    sample.stop(outcome);
+                    exited.run();
                 }
-
-                emitter.complete();
 
             });
             return Mono.<BaseEvent>just(
                             EventFactory.runStartedEvent(input.getThreadId(), input.getRunId())
                     )
-                    .concatWith(outputFlux.subscribeOn(Schedulers.immediate()))
+                    // the run loop blocks its worker while waiting for demand, requests must not be queued on it
+                    .concatWith(outputFlux.subscribeOn(config.runScheduler(), false))
                     .concatWith(
                             Mono.<BaseEvent>just(
-                                    EventFactory.runFinishedEvent(input.getThreadId(), input.getRunId())));
+                                    EventFactory.runFinishedEvent(input.getThreadId(), input.getRunId())))
+                    .doOnNext(metrics::onEvent)
+                    .doFinally( signal -> {
+                        if( claimed.compareAndSet(false, true) ) {
+                            exited.run();
+                        }
+                    });
 
         } catch (Exception e) {
+            exited.run();
             return Flux.error(e);
         }
     }
 
-
 }
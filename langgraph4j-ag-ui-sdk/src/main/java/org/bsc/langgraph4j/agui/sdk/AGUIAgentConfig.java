@@ -0,0 +1,344 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Runtime options of an {@link AGUIAbstractLangGraphAgent}.
+ * Instances are immutable and created through {@link #builder()}.
+ */
+public final class AGUIAgentConfig {
+
+    /**
+     * Defines how compiled graphs are shared among conversation threads
+     */
+    public enum GraphSharing {
+        /**
+         * a new graph is built and compiled for each new thread
+         */
+        PER_THREAD,
+        /**
+         * the graph is built and compiled once and reused by every thread.
+         * Per-thread state lives only in the checkpoint saver
+         */
+        SHARED
+    }
+
+    private final GraphSharing graphSharing;
+    private final Scheduler runScheduler;
+    private final IdGenerator idGenerator;
+    private final int maxThreads;
+    private final Duration threadIdleTtl;
+    private final BackpressurePolicy backpressurePolicy;
+    private final CoalescingPolicy coalescingPolicy;
+    private final MeterRegistry meterRegistry;
+    private final Tags metricsTags;
+    private final boolean stepEvents;
+    private final StateSyncPolicy stateSync;
+    private final int historyTail;
+    private final ReplayPolicy replay;
+    private final ConcurrentRunPolicy concurrentRunPolicy;
+    private final AdmissionPolicy admission;
+
+    private AGUIAgentConfig(Builder builder) {
+        this.graphSharing = builder.graphSharing;
+        this.runScheduler = builder.runScheduler;
+        this.idGenerator = builder.idGenerator;
+        this.maxThreads = builder.maxThreads;
+        this.threadIdleTtl = builder.threadIdleTtl;
+        this.backpressurePolicy = builder.backpressurePolicy;
+        this.coalescingPolicy = builder.coalescingPolicy;
+        this.meterRegistry = (builder.meterRegistry != null) ? builder.meterRegistry : new SimpleMeterRegistry();
+        this.metricsTags = builder.metricsTags;
+        this.stepEvents = builder.stepEvents;
+        this.stateSync = builder.stateSync;
+        this.historyTail = builder.historyTail;
+        this.replay = builder.replay;
+        this.concurrentRunPolicy = builder.concurrentRunPolicy;
+        this.admission = builder.admission;
+    }
+
+    public GraphSharing graphSharing() {
+        return graphSharing;
+    }
+
+    /**
+     * @return the scheduler on which the graph execution loop runs
+     * @see RunSchedulers
+     */
+    public Scheduler runScheduler() {
+        return runScheduler;
+    }
+
+    /**
+     * @return the generator of message and tool call ids
+     */
+    public IdGenerator idGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * @return max number of conversation threads kept by the agent
+     * @see ThreadRegistry
+     */
+    public int maxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @return max idle time of a conversation thread, {@link Duration#ZERO} means no expiration
+     * @see ThreadRegistry
+     */
+    public Duration threadIdleTtl() {
+        return threadIdleTtl;
+    }
+
+    /**
+     * @return how the run loop behaves with slow subscribers
+     */
+    public BackpressurePolicy backpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    /**
+     * @return the micro-batching of text message content deltas, if enabled
+     */
+    public Optional<CoalescingPolicy> coalescingPolicy() {
+        return Optional.ofNullable(coalescingPolicy);
+    }
+
+    /**
+     * @return the registry of the agent metrics
+     * @see AgentMetrics
+     */
+    public MeterRegistry meterRegistry() {
+        return meterRegistry;
+    }
+
+    /**
+     * @return the tags added to every agent metric
+     */
+    public Tags metricsTags() {
+        return metricsTags;
+    }
+
+    /**
+     * @return whether STEP_STARTED / STEP_FINISHED events are emitted for every graph node
+     */
+    public boolean stepEvents() {
+        return stepEvents;
+    }
+
+    /**
+     * @return the synchronization of the graph state with the client, if enabled
+     */
+    public Optional<StateSyncPolicy> stateSync() {
+        return Optional.ofNullable(stateSync);
+    }
+
+    /**
+     * @return number of trailing messages deserialized from the request of a known thread, if the history is skipped
+     * @see AGUIRequestReader
+     */
+    public OptionalInt historyTail() {
+        return (historyTail > 0) ? OptionalInt.of(historyTail) : OptionalInt.empty();
+    }
+
+    /**
+     * @return the buffering of the run events for the SSE reconnection and the idempotent runs, if enabled
+     * @see RunReplayBuffer
+     */
+    public Optional<ReplayPolicy> replay() {
+        return Optional.ofNullable(replay);
+    }
+
+    /**
+     * @return what happens to a run submitted on a thread that already has one in progress
+     */
+    public ConcurrentRunPolicy concurrentRunPolicy() {
+        return concurrentRunPolicy;
+    }
+
+    /**
+     * @return the admission control of the runs, if enabled
+     * @see AdmissionController
+     */
+    public Optional<AdmissionPolicy> admission() {
+        return Optional.ofNullable(admission);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private GraphSharing graphSharing = GraphSharing.PER_THREAD;
+        private Scheduler runScheduler = Schedulers.boundedElastic();
+        private IdGenerator idGenerator = IdGenerator.timeOrdered();
+        private int maxThreads = 10_000;
+        private Duration threadIdleTtl = Duration.ofHours(1);
+        private BackpressurePolicy backpressurePolicy = BackpressurePolicy.buffer(256);
+        private CoalescingPolicy coalescingPolicy;
+        private MeterRegistry meterRegistry;
+        private Tags metricsTags = Tags.empty();
+        private boolean stepEvents = false;
+        private StateSyncPolicy stateSync;
+        private int historyTail;
+        private ReplayPolicy replay;
+        private ConcurrentRunPolicy concurrentRunPolicy = ConcurrentRunPolicy.QUEUE;
+        private AdmissionPolicy admission;
+
+        private Builder() {}
+
+        public Builder graphSharing(GraphSharing graphSharing) {
+            this.graphSharing = requireNonNull(graphSharing, "graphSharing cannot be null");
+            return this;
+        }
+
+        public Builder runScheduler(Scheduler runScheduler) {
+            this.runScheduler = requireNonNull(runScheduler, "runScheduler cannot be null");
+            return this;
+        }
+
+        public Builder idGenerator(IdGenerator idGenerator) {
+            this.idGenerator = requireNonNull(idGenerator, "idGenerator cannot be null");
+            return this;
+        }
+
+        public Builder maxThreads(int maxThreads) {
+            if (maxThreads <= 0) {
+                throw new IllegalArgumentException("maxThreads must be greater than 0");
+            }
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        public Builder threadIdleTtl(Duration threadIdleTtl) {
+            this.threadIdleTtl = requireNonNull(threadIdleTtl, "threadIdleTtl cannot be null");
+            return this;
+        }
+
+        public Builder backpressurePolicy(BackpressurePolicy backpressurePolicy) {
+            this.backpressurePolicy = requireNonNull(backpressurePolicy, "backpressurePolicy cannot be null");
+            return this;
+        }
+
+        /**
+         * Enables the micro-batching of text message content deltas, it is disabled by default
+         *
+         * @param coalescingPolicy the coalescing policy, {@code null} to disable it
+         * @return this builder
+         */
+        public Builder coalescingPolicy(CoalescingPolicy coalescingPolicy) {
+            this.coalescingPolicy = coalescingPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the registry of the agent metrics, by default a {@link SimpleMeterRegistry} private to the agent
+         *
+         * @param meterRegistry the meter registry
+         * @return this builder
+         */
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry cannot be null");
+            return this;
+        }
+
+        public Builder metricsTags(Iterable<Tag> metricsTags) {
+            this.metricsTags = Tags.of(requireNonNull(metricsTags, "metricsTags cannot be null"));
+            return this;
+        }
+
+        public Builder metricsTags(String... keyValues) {
+            return metricsTags(Tags.of(keyValues));
+        }
+
+        /**
+         * Enables the STEP_STARTED / STEP_FINISHED events of the graph nodes, it is disabled by default.
+         * The finished event carries the node duration in milliseconds as {@code rawEvent.durationMs}
+         *
+         * @param stepEvents whether step events are emitted
+         * @return this builder
+         */
+        public Builder stepEvents(boolean stepEvents) {
+            this.stepEvents = stepEvents;
+            return this;
+        }
+
+        /**
+         * Enables the STATE_SNAPSHOT / STATE_DELTA events, it is disabled by default
+         *
+         * @param stateSync the state synchronization policy, {@code null} to disable it
+         * @return this builder
+         */
+        public Builder stateSync(StateSyncPolicy stateSync) {
+            this.stateSync = stateSync;
+            return this;
+        }
+
+        /**
+         * Skips the history already held by the checkpoint: for a known thread only the trailing messages
+         * of the request are deserialized. It is disabled by default, enable it only when the graph input is built
+         * from the last messages, as the ones skipped never reach {@code buildGraphInput}
+         *
+         * @param historyTail number of trailing messages
+         * @return this builder
+         */
+        public Builder historyTail(int historyTail) {
+            if (historyTail <= 0) {
+                throw new IllegalArgumentException("historyTail must be greater than 0");
+            }
+            this.historyTail = historyTail;
+            return this;
+        }
+
+        /**
+         * Enables the replay of the run events on SSE reconnection with {@code Last-Event-ID}, it is disabled by default.
+         * It also makes runs idempotent: a run id already buffered is attached to, not executed again
+         *
+         * @param replay the replay policy, {@code null} to disable it
+         * @return this builder
+         */
+        public Builder replay(ReplayPolicy replay) {
+            this.replay = replay;
+            return this;
+        }
+
+        /**
+         * Sets what happens to a run submitted on a thread that already has one in progress, by default it is queued
+         *
+         * @param concurrentRunPolicy the concurrent run policy
+         * @return this builder
+         */
+        public Builder concurrentRunPolicy(ConcurrentRunPolicy concurrentRunPolicy) {
+            this.concurrentRunPolicy = requireNonNull(concurrentRunPolicy, "concurrentRunPolicy cannot be null");
+            return this;
+        }
+
+        /**
+         * Enables the admission control of the runs, it is disabled by default
+         *
+         * @param admission the admission policy, {@code null} to disable it
+         * @return this builder
+         */
+        public Builder admission(AdmissionPolicy admission) {
+            this.admission = admission;
+            return this;
+        }
+
+        public AGUIAgentConfig build() {
+            return new AGUIAgentConfig(this);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binary framing of the AG-UI event stream, meant for Java consumers that don't need the SSE text format.
+ * <p>
+ * Each event is encoded with Smile or CBOR and written as a frame: a 4 bytes big-endian length followed by the payload.
+ * The encoding mapper is a copy of the application one, so mixins and the {@link AGUIEventSerializers} still apply.
+ */
+public final class AGUIBinaryFraming {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+    public static final String CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
+    private static final int LENGTH_PREFIX = 4;
+
+    private final MediaType mediaType;
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    private AGUIBinaryFraming(MediaType mediaType, ObjectMapper binaryMapper) {
+        this.mediaType = mediaType;
+        this.writer = binaryMapper.writerFor(BaseEvent.class);
+        this.reader = binaryMapper.readerFor(BaseEvent.class);
+    }
+
+    public static AGUIBinaryFraming smile(ObjectMapper objectMapper) {
+        requireNonNull(objectMapper, "objectMapper cannot be null");
+        return new AGUIBinaryFraming(SMILE, objectMapper.copyWith(new SmileFactory()));
+    }
+
+    public static AGUIBinaryFraming cbor(ObjectMapper objectMapper) {
+        requireNonNull(objectMapper, "objectMapper cannot be null");
+        return new AGUIBinaryFraming(CBOR, objectMapper.copyWith(new CBORFactory()));
+    }
+
+    /**
+     * Selects the framing from the accepted media types, in the order given
+     *
+     * @param accepted the accepted media types
+     * @param framings the available framings
+     * @return the first framing compatible with an accepted media type
+     */
+    public static Optional<AGUIBinaryFraming> negotiate(List<MediaType> accepted, AGUIBinaryFraming... framings) {
+        for (var type : accepted) {
+            for (var framing : framings) {
+                if (!type.isWildcardType() && framing.mediaType.isCompatibleWith(type)) {
+                    return Optional.of(framing);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param event the event
+     * @return the event frame, length prefix included
+     * @throws IOException if the event cannot be encoded
+     */
+    public byte[] encode(BaseEvent event) throws IOException {
+        requireNonNull(event, "event cannot be null");
+        final var out = new ByteArrayOutputStream(128);
+        out.write(new byte[LENGTH_PREFIX]);
+        writer.writeValue(out, event);
+
+        final var frame = out.toByteArray();
+        final var length = frame.length - LENGTH_PREFIX;
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+        return frame;
+    }
+
+    /**
+     * @param frames a sequence of complete frames
+     * @return the decoded events
+     * @throws IOException if a frame is truncated or cannot be decoded
+     */
+    public List<BaseEvent> decode(byte[] frames) throws IOException {
+        requireNonNull(frames, "frames cannot be null");
+        final var result = new ArrayList<BaseEvent>();
+        var offset = 0;
+        while (offset < frames.length) {
+            if (frames.length - offset < LENGTH_PREFIX) {
+                throw new IOException("truncated frame length at offset %d".formatted(offset));
+            }
+            final var length = ((frames[offset] & 0xFF) << 24)
+                    | ((frames[offset + 1] & 0xFF) << 16)
+                    | ((frames[offset + 2] & 0xFF) << 8)
+                    | (frames[offset + 3] & 0xFF);
+            offset += LENGTH_PREFIX;
+            if (length < 0 || frames.length - offset < length) {
+                throw new IOException("truncated frame at offset %d".formatted(offset));
+            }
+            result.add(reader.readValue(frames, offset, length));
+            offset += length;
+        }
+        return result;
+    }
+}
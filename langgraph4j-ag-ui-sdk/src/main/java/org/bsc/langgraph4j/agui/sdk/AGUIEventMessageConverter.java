@@ -0,0 +1,58 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Jackson converter of the AG-UI events that records the SSE serialization time into the {@link AgentMetrics}.
+ * It only writes {@link BaseEvent}s, every other payload is left to the default converters.
+ * Register it as an {@code HttpMessageConverter} bean so that it precedes them.
+ */
+public class AGUIEventMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final AgentMetrics metrics;
+
+    public AGUIEventMessageConverter(ObjectMapper objectMapper, AgentMetrics metrics) {
+        super(objectMapper);
+        this.metrics = requireNonNull(metrics, "metrics cannot be null");
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return BaseEvent.class.isAssignableFrom(clazz) && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return BaseEvent.class.isAssignableFrom(clazz) && super.canWrite(type, clazz, mediaType);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        final var start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            metrics.sseSerialized(System.nanoTime() - start);
+        }
+    }
+}
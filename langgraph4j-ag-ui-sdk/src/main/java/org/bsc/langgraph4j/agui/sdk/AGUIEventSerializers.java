@@ -0,0 +1,133 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.event.RunFinishedEvent;
+import com.agui.core.event.RunStartedEvent;
+import com.agui.core.event.StepFinishedEvent;
+import com.agui.core.event.StepStartedEvent;
+import com.agui.core.event.TextMessageContentEvent;
+import com.agui.core.event.TextMessageEndEvent;
+import com.agui.core.event.TextMessageStartEvent;
+import com.agui.core.event.ToolCallArgsEvent;
+import com.agui.core.event.ToolCallEndEvent;
+import com.agui.core.event.ToolCallStartEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Compact serializers of the AG-UI events emitted on the streaming path.
+ * Each one writes its fields straight to the {@link JsonGenerator}, skipping nulls, without going through
+ * the reflective polymorphic bean serializer configured by the AG-UI mixins.
+ * The other events, RUN_ERROR, the state and messages snapshots, the state deltas and the custom events, are less
+ * frequent and keep the default serialization.
+ */
+public final class AGUIEventSerializers {
+
+    @FunctionalInterface
+    interface FieldsWriter<T> {
+        void write(T event, JsonGenerator gen) throws IOException;
+    }
+
+    static final class EventSerializer<T extends BaseEvent> extends StdSerializer<T> {
+
+        private final FieldsWriter<T> fieldsWriter;
+
+        EventSerializer(Class<T> type, FieldsWriter<T> fieldsWriter) {
+            super(type);
+            this.fieldsWriter = fieldsWriter;
+        }
+
+        @Override
+        public void serialize(T event, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("type", event.getType().name());
+            final Object timestamp = event.getTimestamp();
+            if (timestamp instanceof Number value) {
+                gen.writeNumberField("timestamp", value.longValue());
+            }
+            fieldsWriter.write(event, gen);
+            final Object rawEvent = event.getRawEvent();
+            if (rawEvent != null) {
+                provider.defaultSerializeField("rawEvent", rawEvent, gen);
+            }
+            gen.writeEndObject();
+        }
+
+        // the type property is written by the serializer itself
+        @Override
+        public void serializeWithType(T event, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+            serialize(event, gen, provider);
+        }
+    }
+
+    private AGUIEventSerializers() {}
+
+    private static void writeString(JsonGenerator gen, String name, Object value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value.toString());
+        }
+    }
+
+    private static <T extends BaseEvent> void add(SimpleModule module, Class<T> type, FieldsWriter<T> fieldsWriter) {
+        module.addSerializer(type, new EventSerializer<>(type, fieldsWriter));
+    }
+
+    /**
+     * @return a Jackson module registering the compact serializers
+     */
+    public static SimpleModule module() {
+        final var module = new SimpleModule("AGUIEventSerializers");
+
+        add(module, TextMessageStartEvent.class, (e, gen) -> {
+            writeString(gen, "messageId", e.getMessageId());
+            writeString(gen, "role", e.getRole());
+        });
+        add(module, TextMessageContentEvent.class, (e, gen) -> {
+            writeString(gen, "messageId", e.getMessageId());
+            writeString(gen, "delta", e.getDelta());
+        });
+        add(module, TextMessageEndEvent.class, (e, gen) ->
+            writeString(gen, "messageId", e.getMessageId()));
+        add(module, ToolCallStartEvent.class, (e, gen) -> {
+            writeString(gen, "toolCallId", e.getToolCallId());
+            writeString(gen, "toolCallName", e.getToolCallName());
+            writeString(gen, "parentMessageId", e.getParentMessageId());
+        });
+        add(module, ToolCallArgsEvent.class, (e, gen) -> {
+            writeString(gen, "toolCallId", e.getToolCallId());
+            writeString(gen, "delta", e.getDelta());
+        });
+        add(module, ToolCallEndEvent.class, (e, gen) ->
+            writeString(gen, "toolCallId", e.getToolCallId()));
+        add(module, StepStartedEvent.class, (e, gen) ->
+            writeString(gen, "stepName", e.getStepName()));
+        add(module, StepFinishedEvent.class, (e, gen) ->
+            writeString(gen, "stepName", e.getStepName()));
+        add(module, RunStartedEvent.class, (e, gen) -> {
+            writeString(gen, "threadId", e.getThreadId());
+            writeString(gen, "runId", e.getRunId());
+        });
+        add(module, RunFinishedEvent.class, (e, gen) -> {
+            writeString(gen, "threadId", e.getThreadId());
+            writeString(gen, "runId", e.getRunId());
+        });
+
+        return module;
+    }
+
+    /**
+     * Registers the compact serializers into the given mapper
+     *
+     * @param objectMapper the mapper
+     * @return the given mapper
+     */
+    public static ObjectMapper register(ObjectMapper objectMapper) {
+        return objectMapper.registerModule(module());
+    }
+}
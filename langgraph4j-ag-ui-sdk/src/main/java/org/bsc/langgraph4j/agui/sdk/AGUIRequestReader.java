@@ -0,0 +1,128 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.context.Context;
+import com.agui.core.message.BaseMessage;
+import com.agui.core.state.State;
+import com.agui.core.tool.Tool;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bsc.langgraph4j.LG4JLoggable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * History-aware reader of the RunAgentInput request body.
+ * <p>
+ * The AG-UI client sends the whole conversation on every run, but the checkpoint of a known thread already holds it.
+ * The {@code messages} array is scanned without binding its elements, only their position in the body is recorded.
+ * At the end, if the history skipping is enabled by {@link AGUIAgentConfig#historyTail()} and the thread is known
+ * to the agent, only the trailing messages are deserialized, otherwise all of them are.
+ * The thread may be evicted before the run starts: the run then ends with a RUN_ERROR event, coded
+ * {@code HISTORY_UNAVAILABLE}, and the client is expected to send the request again, with its whole history.
+ */
+public final class AGUIRequestReader implements LG4JLoggable {
+
+    private static final TypeReference<List<Tool>> TOOLS = new TypeReference<>() {};
+    private static final TypeReference<List<Context>> CONTEXT = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final AGUIAbstractLangGraphAgent agent;
+
+    public AGUIRequestReader(ObjectMapper objectMapper, AGUIAbstractLangGraphAgent agent) {
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper cannot be null");
+        this.agent = requireNonNull(agent, "agent cannot be null");
+    }
+
+    /**
+     * @param body the request body
+     * @return the run parameters
+     * @throws IOException if the body is not a valid RunAgentInput
+     */
+    public AGUIParameters read(byte[] body) throws IOException {
+        requireNonNull(body, "body cannot be null");
+
+        try (var parser = objectMapper.getFactory().createParser(body)) {
+            parser.nextToken();
+            return read(body, parser);
+        }
+    }
+
+    /**
+     * Reads a RunAgentInput embedded in a larger JSON document, eg. a WebSocket frame
+     *
+     * @param source the bytes the parser reads from
+     * @param parser the parser, positioned on the start of the RunAgentInput object. It is left on its end.
+     * @return the run parameters
+     * @throws IOException if the object is not a valid RunAgentInput
+     */
+    AGUIParameters read(byte[] source, JsonParser parser) throws IOException {
+        final var start = System.nanoTime();
+
+        final var result = new AGUIParameters();
+        // start and end offsets of the message elements, in pairs
+        var messageOffsets = new long[32];
+        var messageCount = 0;
+
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("RunAgentInput must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var field = parser.currentName();
+            final var value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "threadId" -> result.setThreadId(parser.getValueAsString());
+                case "runId" -> result.setRunId(parser.getValueAsString());
+                case "tools" -> result.setTools(objectMapper.readValue(parser, TOOLS));
+                case "context" -> result.setContext(objectMapper.readValue(parser, CONTEXT));
+                case "forwardedProps" -> result.setForwardedProps(objectMapper.readValue(parser, Object.class));
+                case "state" -> result.setState(objectMapper.readValue(parser, State.class));
+                case "messages" -> {
+                    if (value != JsonToken.START_ARRAY) {
+                        throw new IOException("messages must be an array");
+                    }
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (messageCount * 2 == messageOffsets.length) {
+                            messageOffsets = Arrays.copyOf(messageOffsets, messageOffsets.length * 2);
+                        }
+                        messageOffsets[messageCount * 2] = parser.currentTokenLocation().getByteOffset();
+                        parser.skipChildren();
+                        messageOffsets[messageCount * 2 + 1] = parser.currentLocation().getByteOffset();
+                        ++messageCount;
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        final var historyTail = agent.config().historyTail();
+        final var skipHistory = historyTail.isPresent()
+                && result.getThreadId() != null
+                && agent.threads().contains(result.getThreadId());
+        final var first = skipHistory ? Math.max(0, messageCount - historyTail.getAsInt()) : 0;
+
+        final var messages = first > 0 ?
+                new MessageTail(messageCount - first, first) :
+                new ArrayList<BaseMessage>(messageCount);
+        for (int i = first; i < messageCount; ++i) {
+            final var offset = (int) messageOffsets[i * 2];
+            final var length = (int) (messageOffsets[i * 2 + 1] - offset);
+            messages.add(objectMapper.readValue(source, offset, length, BaseMessage.class));
+        }
+        result.setMessages(messages);
+
+        agent.metrics().requestParsed(System.nanoTime() - start, source.length, first);
+        log.trace("thread '{}' request parsed, {} messages of {} skipped", result.getThreadId(), first, messageCount);
+
+        return result;
+    }
+}
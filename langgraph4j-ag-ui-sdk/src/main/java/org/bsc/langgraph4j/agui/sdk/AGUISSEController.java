@@ -1,25 +1,58 @@
 package org.bsc.langgraph4j.agui.sdk;
 
+import com.agui.core.event.BaseEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Subscription;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
 
 @Controller
 public class AGUISSEController {
 
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    /**
+     * Tenant of the run, used by the admission control. When missing, it is taken from the {@code forwardedProps}
+     */
+    public static final String TENANT = "X-AGUI-Tenant";
+
     private final AGUIAbstractLangGraphAgent agUiAgent;
     private final ObjectMapper objectMapper;
+    private final AGUIRequestReader requestReader;
+    private final AGUIBinaryFraming smileFraming;
+    private final AGUIBinaryFraming cborFraming;
 
     public AGUISSEController(AGUIAbstractLangGraphAgent agUiAgent, ObjectMapper objectMapper) {
         this.agUiAgent = agUiAgent;
         this.objectMapper = objectMapper;
+        this.requestReader = new AGUIRequestReader(objectMapper, agUiAgent);
+        this.smileFraming = AGUIBinaryFraming.smile(objectMapper);
+        this.cborFraming = AGUIBinaryFraming.cbor(objectMapper);
+    }
+
+    private AGUIParameters readParameters(byte[] body) {
+        try {
+            return requestReader.read(body);
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid RunAgentInput", ex);
+        }
     }
 
     //@PostMapping(value = "/sse/{agentId}")
@@ -49,17 +82,114 @@ public class AGUISSEController {
 
     }
 
-    @PostMapping(value = "/sse/{agentId}")
-    public Flux<String> streamDataWithFlux(@PathVariable("agentId") final String agentId, @RequestBody() AGUIParameters parameters ) throws JsonProcessingException {
-
-        return this.agUiAgent.run(parameters.toRunAgentParameters())
-                .map( event -> {
-                    try {
-                        return " %s".formatted(objectMapper.writeValueAsString(event));
-                    } catch (Exception e) {
-                        throw new Error( e );
-                    }
-                });
+    /**
+     * Streams the run events as Server-Sent Events.
+     * Each event is serialized by the application Jackson converter straight into the response stream,
+     * framed as {@code id:<sequence>} and {@code data:<json>}, without intermediate strings.
+     * Events are requested one at a time, so the agent backpressure is honoured.
+     * The request is read by the {@link AGUIRequestReader}, that skips the history already held by the checkpoint.
+     * <p>
+     * When the agent has a {@link RunReplayBuffer}, a request with the {@code Last-Event-ID} header of a buffered run
+     * resumes it from the following event instead of executing it again.
+     */
+    @PostMapping(value = "/sse/{agentId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BaseEvent>> streamDataWithFlux(@PathVariable("agentId") final String agentId,
+                                                             @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+                                                             @RequestHeader(name = TENANT, required = false) String tenant,
+                                                             @RequestBody() byte[] body ) {
+
+        final var parameters = readParameters(body);
+        return sequencedEvents(parameters, lastEventId, tenant)
+                .map( event -> ServerSentEvent.<BaseEvent>builder(event.event())
+                        .id(String.valueOf(event.id()))
+                        .build());
+    }
+
+    private Flux<SequencedEvent> sequencedEvents(AGUIParameters parameters, String lastEventId, String tenant) {
+        final var input = parameters.toRunAgentParameters();
+        if (lastEventId != null) {
+            final long lastId;
+            try {
+                lastId = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid Last-Event-ID", ex);
+            }
+            try {
+                final var resumed = agUiAgent.resume(input, lastId);
+                if (resumed.isPresent()) {
+                    return resumed.get();
+                }
+            } catch (RunReplayBuffer.ReplayGapException ex) {
+                throw new ResponseStatusException(HttpStatus.GONE, ex.getMessage(), ex);
+            }
+        }
+        return agUiAgent.runSequenced(input, tenant)
+                .onErrorMap(RunReplayBuffer.ReplayGapException.class,
+                        ex -> new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex));
+    }
+
+    /**
+     * Streams the same run events in the {@link AGUIBinaryFraming} selected by the {@code Accept} header,
+     * Smile or CBOR, for Java consumers.
+     * It has its own path, so a client accepting anything, or not sending {@code Accept}, always gets SSE.
+     * Each frame is written on a bounded elastic worker before requesting the next event, and the run is cancelled
+     * when the response ends.
+     */
+    @PostMapping(value = "/binary/{agentId}", produces = { AGUIBinaryFraming.SMILE_VALUE, AGUIBinaryFraming.CBOR_VALUE })
+    public ResponseEntity<ResponseBodyEmitter> streamDataWithBinaryFraming(@PathVariable("agentId") final String agentId,
+                                                                          @RequestHeader(HttpHeaders.ACCEPT) String accept,
+                                                                          @RequestHeader(name = TENANT, required = false) String tenant,
+                                                                          @RequestBody() byte[] body ) {
+        final var framing = AGUIBinaryFraming.negotiate(MediaType.parseMediaTypes(accept), smileFraming, cborFraming)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE));
+
+        final var parameters = readParameters(body);
+        final var emitter = new ResponseBodyEmitter(Long.MAX_VALUE);
+        final var subscriber = new BaseSubscriber<BaseEvent>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(BaseEvent event) {
+                try {
+                    final var start = System.nanoTime();
+                    final var frame = framing.encode(event);
+                    agUiAgent.metrics().sseSerialized(System.nanoTime() - start);
+                    emitter.send(frame, framing.mediaType());
+                    request(1);
+                } catch (Exception ex) {
+                    cancel();
+                    emitter.completeWithError(ex);
+                }
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                emitter.completeWithError(throwable);
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                emitter.complete();
+            }
+        };
+        emitter.onCompletion(subscriber::dispose);
+        emitter.onTimeout(subscriber::dispose);
+        emitter.onError(ex -> subscriber.dispose());
+
+        // the writes block on a slow client, they must not run on the thread delivering the event, eg. a parallel
+        // worker flushing the coalesced deltas, nor hold up the run loop
+        this.agUiAgent.run(parameters.toRunAgentParameters(), tenant)
+                .publishOn(Schedulers.boundedElastic(), 1)
+                .subscribe(subscriber);
+
+        return ResponseEntity
+                .ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(framing.mediaType())
+                .body(emitter);
     }
 
 }
@@ -0,0 +1,33 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registers the {@link AGUIWebSocketHandler} on {@code /ws/{agentId}}, next to the SSE endpoint.
+ * It is opt-in, enabled by {@code agui.websocket.enabled=true}. The servlet WebSocket container is left
+ * to the application, the handler sets the message size limit of its own sessions.
+ */
+@Configuration
+@EnableWebSocket
+@ConditionalOnProperty(prefix = "agui.websocket", name = "enabled", havingValue = "true")
+public class AGUIWebSocketConfig implements WebSocketConfigurer {
+
+    private final AGUIAbstractLangGraphAgent agUiAgent;
+    private final ObjectMapper objectMapper;
+
+    public AGUIWebSocketConfig(AGUIAbstractLangGraphAgent agUiAgent, ObjectMapper objectMapper) {
+        this.agUiAgent = agUiAgent;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // same origin only, as the default
+        registry.addHandler(new AGUIWebSocketHandler(agUiAgent, objectMapper), "/ws/{agentId}");
+    }
+}
@@ -0,0 +1,307 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.bsc.langgraph4j.LG4JLoggable;
+import org.reactivestreams.Subscription;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * WebSocket transport of the AG-UI runs, many threads and runs are multiplexed over a single socket.
+ * <p>
+ * Client frames, JSON text messages:
+ * <ul>
+ *     <li>{@code {"op":"run","credit":64,"input":{RunAgentInput}}} starts a run, keyed by its {@code runId}.
+ *     {@code credit}, optional, is the number of events the client accepts before asking for more</li>
+ *     <li>{@code {"op":"request","runId":"...","n":32}} grants more events to the run</li>
+ *     <li>{@code {"op":"cancel","runId":"..."}} cancels the run</li>
+ * </ul>
+ * Server frames:
+ * <ul>
+ *     <li>{@code {"runId":"...","event":{AG-UI event}}} an event of the run</li>
+ *     <li>{@code {"runId":"...","op":"complete"}} the run has no more events</li>
+ *     <li>{@code {"runId":"...","op":"error","message":"..."}} the run, or the client frame, failed</li>
+ * </ul>
+ * Each run is flow controlled by its own credit, so a slow thread doesn't stall the others on the socket.
+ * The runs share the send buffer of the socket, each one may have at most its share of it waiting to be sent:
+ * a run outpacing the client, despite its credit, is cancelled with an error frame, while the socket and the other
+ * runs go on. Runs are cancelled when the socket is closed.
+ */
+public class AGUIWebSocketHandler extends TextWebSocketHandler implements LG4JLoggable {
+
+    public static final int DEFAULT_CREDIT = 64;
+    public static final int DEFAULT_MAX_RUNS_PER_SESSION = 16;
+
+    private static final String RUNS_ATTRIBUTE = AGUIWebSocketHandler.class.getName() + ".runs";
+    private static final String SESSION_ATTRIBUTE = AGUIWebSocketHandler.class.getName() + ".session";
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_SIZE_LIMIT = 512 * 1024;
+    // room for the control frames, and for the single frames larger than the share of a run
+    private static final int SEND_BUFFER_HEADROOM = 128 * 1024;
+    // a run frame carries the whole RunAgentInput
+    private static final int MAX_TEXT_MESSAGE_SIZE = 4 * 1024 * 1024;
+
+    private final AGUIAbstractLangGraphAgent agent;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter eventWriter;
+    private final AGUIRequestReader requestReader;
+    private final int maxRunsPerSession;
+    private final long runBufferLimit;
+
+    public AGUIWebSocketHandler(AGUIAbstractLangGraphAgent agent, ObjectMapper objectMapper) {
+        this(agent, objectMapper, DEFAULT_MAX_RUNS_PER_SESSION);
+    }
+
+    public AGUIWebSocketHandler(AGUIAbstractLangGraphAgent agent, ObjectMapper objectMapper, int maxRunsPerSession) {
+        this.agent = requireNonNull(agent, "agent cannot be null");
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper cannot be null");
+        if (maxRunsPerSession <= 0) {
+            throw new IllegalArgumentException("maxRunsPerSession must be greater than zero");
+        }
+        this.maxRunsPerSession = maxRunsPerSession;
+        this.runBufferLimit = SEND_BUFFER_SIZE_LIMIT / maxRunsPerSession;
+        this.eventWriter = objectMapper.writerFor(BaseEvent.class);
+        this.requestReader = new AGUIRequestReader(objectMapper, agent);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, RunSubscriber> runs(WebSocketSession session) {
+        return (Map<String, RunSubscriber>) session.getAttributes().get(RUNS_ATTRIBUTE);
+    }
+
+    /**
+     * Send side of the socket, shared by its runs. Events of different runs are sent from different threads
+     * through the buffer of the decorator, that is flushed in order.
+     */
+    private static final class Outbound {
+        final ConcurrentWebSocketSessionDecorator session;
+        // bytes handed to the decorator so far
+        final AtomicLong enqueued = new AtomicLong();
+
+        Outbound(WebSocketSession session) {
+            this.session = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS,
+                    SEND_BUFFER_SIZE_LIMIT + SEND_BUFFER_HEADROOM);
+        }
+
+        /**
+         * @return bytes written to the socket so far, never more than the real count: the counter is increased
+         * once the frame is in the buffer
+         */
+        long sent() {
+            return enqueued.get() - session.getBufferSize();
+        }
+
+        /**
+         * @return the position in the stream of the end of the frame
+         */
+        long send(TextMessage message) throws IOException {
+            session.sendMessage(message);
+            return enqueued.addAndGet(message.getPayloadLength());
+        }
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.setTextMessageSizeLimit(MAX_TEXT_MESSAGE_SIZE);
+        session.getAttributes().put(RUNS_ATTRIBUTE, new ConcurrentHashMap<String, RunSubscriber>());
+        session.getAttributes().put(SESSION_ATTRIBUTE, new Outbound(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        final var runs = runs(session);
+        if (runs != null) {
+            runs.values().forEach(RunSubscriber::dispose);
+            runs.clear();
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        final var outbound = (Outbound) session.getAttributes().get(SESSION_ATTRIBUTE);
+        final var frame = message.asBytes();
+
+        String op = null;
+        String runId = null;
+        long n = 0;
+        long credit = DEFAULT_CREDIT;
+        AGUIParameters input = null;
+
+        try (var parser = objectMapper.getFactory().createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                send(outbound, null, "error", "frame must be a JSON object");
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "op" -> op = parser.getValueAsString();
+                    case "runId" -> runId = parser.getValueAsString();
+                    case "n" -> n = parser.getValueAsLong();
+                    case "credit" -> credit = parser.getValueAsLong(DEFAULT_CREDIT);
+                    case "input" -> input = requestReader.read(frame, parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException ex) {
+            log.debug("invalid frame", ex);
+            send(outbound, runId, "error", "invalid frame: %s".formatted(ex.getMessage()));
+            return;
+        }
+
+        switch (op == null ? "" : op) {
+            case "run" -> startRun(outbound, input, credit);
+            case "request" -> {
+                final var run = runs(session).get(String.valueOf(runId));
+                if (run != null && n > 0) {
+                    run.request(n);
+                }
+            }
+            case "cancel" -> {
+                final var run = runs(session).remove(String.valueOf(runId));
+                if (run != null) {
+                    run.dispose();
+                }
+            }
+            default -> send(outbound, runId, "error", "unknown op '%s'".formatted(op));
+        }
+    }
+
+    private void startRun(Outbound session, AGUIParameters input, long credit) throws IOException {
+        if (input == null || input.getRunId() == null) {
+            send(session, null, "error", "run requires an input with a runId");
+            return;
+        }
+        if (credit <= 0) {
+            send(session, input.getRunId(), "error", "credit must be greater than zero");
+            return;
+        }
+        final var runs = runs(session.session);
+        if (runs.size() >= maxRunsPerSession) {
+            send(session, input.getRunId(), "error", "too many runs on this socket, max %d".formatted(maxRunsPerSession));
+            return;
+        }
+        final var subscriber = new RunSubscriber(session, input.getRunId(), credit);
+        if (runs.putIfAbsent(input.getRunId(), subscriber) != null) {
+            send(session, input.getRunId(), "error", "run already in progress");
+            return;
+        }
+        agent.run(input.toRunAgentParameters()).subscribe(subscriber);
+    }
+
+    private void send(Outbound session, String runId, String op, String message) throws IOException {
+        final var out = new ByteArrayOutputStream(128);
+        try (var gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            if (runId != null) {
+                gen.writeStringField("runId", runId);
+            }
+            gen.writeStringField("op", op);
+            if (message != null) {
+                gen.writeStringField("message", message);
+            }
+            gen.writeEndObject();
+        }
+        session.send(new TextMessage(out.toByteArray()));
+    }
+
+    /**
+     * Subscriber of a single run, it requests the events granted by the client
+     * and keeps track of its frames still waiting in the send buffer
+     */
+    private final class RunSubscriber extends BaseSubscriber<BaseEvent> {
+        private final Outbound session;
+        private final String runId;
+        private final long initialCredit;
+        // end positions in the stream and sizes of the frames not sent yet, only touched by onNext
+        private final ArrayDeque<long[]> pending = new ArrayDeque<>();
+        private long pendingBytes;
+
+        RunSubscriber(Outbound session, String runId, long initialCredit) {
+            this.session = session;
+            this.runId = runId;
+            this.initialCredit = initialCredit;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(initialCredit);
+        }
+
+        @Override
+        protected void hookOnNext(BaseEvent event) {
+            try {
+                final var start = System.nanoTime();
+                final var out = new ByteArrayOutputStream(256);
+                try (var gen = objectMapper.getFactory().createGenerator(out)) {
+                    gen.writeStartObject();
+                    gen.writeStringField("runId", runId);
+                    gen.writeFieldName("event");
+                    eventWriter.writeValue(gen, event);
+                    gen.writeEndObject();
+                }
+                agent.metrics().sseSerialized(System.nanoTime() - start);
+                if (!reserve(out.size())) {
+                    log.warn("run '{}' has {} bytes waiting to be sent, run cancelled", runId, pendingBytes);
+                    cancel();
+                    runs(session.session).remove(runId, this);
+                    send(session, runId, "error", "the client doesn't keep up with the run, run cancelled");
+                    return;
+                }
+                final var end = session.send(new TextMessage(out.toByteArray()));
+                pending.addLast(new long[] { end, out.size() });
+                pendingBytes += out.size();
+            } catch (Exception ex) {
+                log.warn("run '{}' event not sent, run cancelled", runId, ex);
+                cancel();
+                runs(session.session).remove(runId, this);
+            }
+        }
+
+        // a single frame larger than the share of the run is let through once its previous frames are gone
+        private boolean reserve(int size) {
+            final var sent = session.sent();
+            while (!pending.isEmpty() && pending.peekFirst()[0] <= sent) {
+                pendingBytes -= pending.pollFirst()[1];
+            }
+            return pendingBytes == 0 || pendingBytes + size <= runBufferLimit;
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            runs(session.session).remove(runId, this);
+            try {
+                send(session, runId, "error", throwable.getMessage());
+            } catch (IOException ex) {
+                log.debug("run '{}' error not sent", runId, ex);
+            }
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            runs(session.session).remove(runId, this);
+            try {
+                send(session, runId, "complete", null);
+            } catch (IOException ex) {
+                log.debug("run '{}' completion not sent", runId, ex);
+            }
+        }
+    }
+}
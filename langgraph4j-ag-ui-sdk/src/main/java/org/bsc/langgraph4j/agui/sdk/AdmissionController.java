@@ -0,0 +1,437 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import org.bsc.langgraph4j.LG4JLoggable;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Admission control in front of the run execution, configured by an {@link AdmissionPolicy}.
+ * <p>
+ * When all the slots are busy, runs wait in per-tenant queues of their {@link RunPriority} class.
+ * A freed slot goes to the backlogged class with the lowest pass and, within it, to the backlogged tenant with the
+ * lowest pass (stride scheduling at both levels). The pass of a class grows inversely to its {@link RunPriority#share()},
+ * the one of a tenant to its weight, so slots are shared in proportion to them: a steady stream of higher class runs
+ * delays the lower classes, but doesn't starve them. When the queue is full, the newest run of the tenant with the largest weighted backlog
+ * in the lowest class is rejected in favour of a higher class run or of a lighter tenant.
+ * Rejected runs carry a retry hint estimated from the recent run durations.
+ */
+public final class AdmissionController implements LG4JLoggable {
+
+    public enum RejectionCause {
+        QUEUE_FULL,
+        QUEUE_TIMEOUT
+    }
+
+    /**
+     * @param cause why the run has been rejected
+     * @param retryAfter when the client should retry
+     */
+    public record Rejection(RejectionCause cause, Duration retryAfter) {}
+
+    private static final long STRIDE = 1L << 20;
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private enum State {
+        QUEUED,
+        ADMITTED,
+        STARTED,
+        DONE
+    }
+
+    private static final class Waiter {
+        final String tenant;
+        final RunPriority priority;
+        final long enqueuedNanos = System.nanoTime();
+        final Sinks.One<Boolean> decision = Sinks.one();
+        // guarded by the controller lock
+        State state = State.QUEUED;
+        long startedNanos;
+        Rejection rejection;
+        Disposable timer;
+
+        Waiter(String tenant, RunPriority priority) {
+            this.tenant = tenant;
+            this.priority = priority;
+        }
+    }
+
+    private static final class TenantQueue {
+        final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        final int weight;
+        long pass;
+
+        TenantQueue(int weight, long pass) {
+            this.weight = weight;
+            this.pass = pass;
+        }
+
+        double weightedBacklog() {
+            return (double) waiters.size() / weight;
+        }
+    }
+
+    // the queues of a priority class with the virtual time of its stride scheduling, and its own pass among the classes
+    private static final class PriorityClass {
+        final Map<String, TenantQueue> backlog = new HashMap<>();
+        final int share;
+        long virtualTime;
+        long pass;
+
+        PriorityClass(int share) {
+            this.share = share;
+        }
+    }
+
+    @FunctionalInterface
+    public interface QueueWaitRecorder {
+        void record(RunPriority priority, long nanos);
+    }
+
+    private final AdmissionPolicy policy;
+    private final QueueWaitRecorder queueWaitRecorder;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<RunPriority, PriorityClass> classes = new EnumMap<>(RunPriority.class);
+    private final LongAdder queueFullRejections = new LongAdder();
+    private final LongAdder queueTimeoutRejections = new LongAdder();
+    // guarded by the lock
+    private long virtualTime;
+    private int active;
+    private int queued;
+    private double averageRunNanos;
+
+    /**
+     * @param policy the admission policy
+     * @param queueWaitRecorder receives the time spent in queue by every admitted run
+     */
+    public AdmissionController(AdmissionPolicy policy, QueueWaitRecorder queueWaitRecorder) {
+        this.policy = requireNonNull(policy, "policy cannot be null");
+        this.queueWaitRecorder = requireNonNull(queueWaitRecorder, "queueWaitRecorder cannot be null");
+        for (var priority : RunPriority.values()) {
+            classes.put(priority, new PriorityClass(priority.share()));
+        }
+    }
+
+    public AdmissionPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * @return number of runs executing
+     */
+    public int activeRuns() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of runs waiting for admission
+     */
+    public int queuedRuns() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejectionCount(RejectionCause cause) {
+        return switch (requireNonNull(cause, "cause cannot be null")) {
+            case QUEUE_FULL -> queueFullRejections.sum();
+            case QUEUE_TIMEOUT -> queueTimeoutRejections.sum();
+        };
+    }
+
+    /**
+     * @return number of runs of the given class waiting for admission
+     */
+    public int queuedRuns(RunPriority priority) {
+        requireNonNull(priority, "priority cannot be null");
+        lock.lock();
+        try {
+            return classes.get(priority).backlog.values().stream()
+                    .mapToInt(queue -> queue.waiters.size())
+                    .sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits a run, on subscription
+     *
+     * @param tenant the tenant of the run
+     * @param priority the priority class of the run
+     * @param run builds the run execution once admitted, the given release action frees the slot and must be invoked
+     *            once the execution has really ended, not when its subscriber goes away
+     * @param rejected the events sent when the run is rejected
+     * @return the run events
+     */
+    public <T> Flux<T> admit(String tenant, RunPriority priority, Function<Runnable, ? extends Flux<T>> run, Function<Rejection, Flux<T>> rejected) {
+        requireNonNull(tenant, "tenant cannot be null");
+        requireNonNull(priority, "priority cannot be null");
+        requireNonNull(run, "run cannot be null");
+        requireNonNull(rejected, "rejected cannot be null");
+
+        return Flux.defer(() -> {
+            final var waiter = new Waiter(tenant, priority);
+            Waiter evicted = null;
+            Rejection rejection = null;
+
+            lock.lock();
+            try {
+                if (active < policy.maxConcurrentRuns() && queued == 0) {
+                    active++;
+                    waiter.state = State.STARTED;
+                    waiter.startedNanos = System.nanoTime();
+                } else if (policy.maxQueueWait().isZero()) {
+                    rejection = rejectionLocked(RejectionCause.QUEUE_FULL);
+                } else if (queued < policy.maxQueuedRuns()) {
+                    enqueueLocked(waiter);
+                } else {
+                    evicted = evictLocked(waiter);
+                    if (evicted != null) {
+                        enqueueLocked(waiter);
+                    } else {
+                        rejection = rejectionLocked(RejectionCause.QUEUE_FULL);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (evicted != null) {
+                reject(evicted);
+            }
+            if (rejection != null) {
+                log.debug("run of tenant '{}' rejected, {}", tenant, rejection);
+                return rejected.apply(rejection);
+            }
+            if (waiter.state == State.STARTED) {
+                queueWaitRecorder.record(priority, 0L);
+                return run.apply(() -> finish(waiter));
+            }
+
+            final var timer = Schedulers.parallel().schedule(() -> timeout(waiter),
+                    policy.maxQueueWait().toNanos(), TimeUnit.NANOSECONDS);
+            lock.lock();
+            try {
+                waiter.timer = timer;
+            } finally {
+                lock.unlock();
+            }
+            log.trace("run of tenant '{}' queued as {}", tenant, priority);
+
+            return waiter.decision.asMono()
+                    .flatMapMany(admitted -> admitted ? start(waiter, run) : rejected.apply(waiter.rejection))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            abandon(waiter);
+                        }
+                    });
+        });
+    }
+
+    private <T> Flux<T> start(Waiter waiter, Function<Runnable, ? extends Flux<T>> run) {
+        lock.lock();
+        try {
+            if (waiter.state != State.ADMITTED) {
+                return Flux.empty();
+            }
+            waiter.state = State.STARTED;
+            waiter.startedNanos = System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+        queueWaitRecorder.record(waiter.priority, waiter.startedNanos - waiter.enqueuedNanos);
+        return run.apply(() -> finish(waiter));
+    }
+
+    private void enqueueLocked(Waiter waiter) {
+        final var priorityClass = classes.get(waiter.priority);
+        if (priorityClass.backlog.isEmpty()) {
+            // an idle class doesn't bank the slots it didn't use
+            priorityClass.pass = Math.max(priorityClass.pass, virtualTime);
+        }
+        final var queue = priorityClass.backlog.computeIfAbsent(waiter.tenant,
+                tenant -> new TenantQueue(policy.weight(tenant), priorityClass.virtualTime));
+        queue.waiters.addLast(waiter);
+        queued++;
+    }
+
+    // the newest run of the heaviest tenant of the lowest class makes room,
+    // unless that class is higher than the incoming run one, or the incoming tenant would be the heaviest
+    private Waiter evictLocked(Waiter incoming) {
+        final var priorities = RunPriority.values();
+        for (int i = priorities.length - 1; i >= incoming.priority.ordinal(); --i) {
+            final var backlog = classes.get(priorities[i]).backlog;
+            if (backlog.isEmpty()) {
+                continue;
+            }
+            TenantQueue heaviest = null;
+            for (var queue : backlog.values()) {
+                if (heaviest == null || queue.weightedBacklog() > heaviest.weightedBacklog()) {
+                    heaviest = queue;
+                }
+            }
+            if (priorities[i] == incoming.priority) {
+                final var own = backlog.get(incoming.tenant);
+                final var incomingBacklog = (double) ((own != null ? own.waiters.size() : 0) + 1) / policy.weight(incoming.tenant);
+                if (heaviest.weightedBacklog() <= incomingBacklog) {
+                    return null;
+                }
+            }
+            final var evicted = heaviest.waiters.peekLast();
+            removeLocked(evicted);
+            evicted.rejection = rejectionLocked(RejectionCause.QUEUE_FULL);
+            return evicted;
+        }
+        return null;
+    }
+
+    private void removeLocked(Waiter waiter) {
+        final var backlog = classes.get(waiter.priority).backlog;
+        final var queue = backlog.get(waiter.tenant);
+        if (queue != null) {
+            queue.waiters.remove(waiter);
+            if (queue.waiters.isEmpty()) {
+                backlog.remove(waiter.tenant);
+            }
+        }
+        queued--;
+        waiter.state = State.DONE;
+        if (waiter.timer != null) {
+            waiter.timer.dispose();
+        }
+    }
+
+    private Rejection rejectionLocked(RejectionCause cause) {
+        switch (cause) {
+            case QUEUE_FULL -> queueFullRejections.increment();
+            case QUEUE_TIMEOUT -> queueTimeoutRejections.increment();
+        }
+        var retryAfter = policy.maxQueueWait();
+        if (averageRunNanos > 0) {
+            retryAfter = Duration.ofNanos((long) (averageRunNanos * (queued + 1) / policy.maxConcurrentRuns()));
+        }
+        return new Rejection(cause, retryAfter.compareTo(MIN_RETRY_AFTER) < 0 ? MIN_RETRY_AFTER : retryAfter);
+    }
+
+    // freed slots go to the backlogged class with the lowest pass, the highest one on ties,
+    // then to its backlogged tenant with the lowest pass
+    private List<Waiter> dispatchLocked() {
+        final var admitted = new ArrayList<Waiter>();
+        while (active < policy.maxConcurrentRuns() && queued > 0) {
+            PriorityClass priorityClass = null;
+            for (var candidate : classes.values()) {
+                if (!candidate.backlog.isEmpty() && (priorityClass == null || candidate.pass < priorityClass.pass)) {
+                    priorityClass = candidate;
+                }
+            }
+            virtualTime = priorityClass.pass;
+            priorityClass.pass += STRIDE / priorityClass.share;
+            String next = null;
+            TenantQueue nextQueue = null;
+            for (var entry : priorityClass.backlog.entrySet()) {
+                if (nextQueue == null || entry.getValue().pass < nextQueue.pass) {
+                    next = entry.getKey();
+                    nextQueue = entry.getValue();
+                }
+            }
+            final var waiter = nextQueue.waiters.pollFirst();
+            priorityClass.virtualTime = nextQueue.pass;
+            nextQueue.pass += STRIDE / nextQueue.weight;
+            if (nextQueue.waiters.isEmpty()) {
+                priorityClass.backlog.remove(next);
+            }
+            queued--;
+            active++;
+            waiter.state = State.ADMITTED;
+            if (waiter.timer != null) {
+                waiter.timer.dispose();
+            }
+            admitted.add(waiter);
+        }
+        return admitted;
+    }
+
+    private void finish(Waiter waiter) {
+        final List<Waiter> admitted;
+        lock.lock();
+        try {
+            if (waiter.state == State.DONE) {
+                return;
+            }
+            if (waiter.state == State.STARTED) {
+                final var duration = System.nanoTime() - waiter.startedNanos;
+                averageRunNanos = (averageRunNanos == 0) ? duration : averageRunNanos * 0.8 + duration * 0.2;
+            }
+            admitted = releaseLocked(waiter);
+        } finally {
+            lock.unlock();
+        }
+        admitted.forEach(next -> next.decision.tryEmitValue(true));
+    }
+
+    private List<Waiter> releaseLocked(Waiter waiter) {
+        waiter.state = State.DONE;
+        active--;
+        return dispatchLocked();
+    }
+
+    // the subscriber went away before the run started, a started run is released by its execution once it has ended
+    private void abandon(Waiter waiter) {
+        List<Waiter> admitted = List.of();
+        lock.lock();
+        try {
+            switch (waiter.state) {
+                case QUEUED -> removeLocked(waiter);
+                case ADMITTED -> admitted = releaseLocked(waiter);
+                default -> {}
+            }
+        } finally {
+            lock.unlock();
+        }
+        admitted.forEach(next -> next.decision.tryEmitValue(true));
+    }
+
+    private void timeout(Waiter waiter) {
+        lock.lock();
+        try {
+            if (waiter.state != State.QUEUED) {
+                return;
+            }
+            removeLocked(waiter);
+            waiter.rejection = rejectionLocked(RejectionCause.QUEUE_TIMEOUT);
+        } finally {
+            lock.unlock();
+        }
+        log.debug("run of tenant '{}' not admitted within {}", waiter.tenant, policy.maxQueueWait());
+        reject(waiter);
+    }
+
+    private void reject(Waiter waiter) {
+        waiter.decision.tryEmitValue(false);
+    }
+}
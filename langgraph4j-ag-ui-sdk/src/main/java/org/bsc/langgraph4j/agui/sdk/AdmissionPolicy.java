@@ -0,0 +1,61 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Admission control of the runs of an agent.
+ * At most {@code maxConcurrentRuns} runs execute at once, the others wait in a bounded queue up to {@code maxQueueWait}.
+ * Waiting runs are admitted in weighted fair order among tenants, so a tenant bursting runs doesn't starve the others.
+ *
+ * @param maxConcurrentRuns max number of runs executing at once
+ * @param maxQueuedRuns max number of runs waiting for admission, {@code 0} rejects a run as soon as no slot is free
+ * @param maxQueueWait max time a run waits for admission
+ * @param tenantKey the {@code forwardedProps} property holding the tenant, when not given by the transport
+ * @param tenantWeights weights of the tenants, the ones not listed weigh 1
+ */
+public record AdmissionPolicy(int maxConcurrentRuns,
+                              int maxQueuedRuns,
+                              Duration maxQueueWait,
+                              String tenantKey,
+                              Map<String, Integer> tenantWeights) {
+
+    public static final String DEFAULT_TENANT = "default";
+    public static final String DEFAULT_TENANT_KEY = "tenant";
+
+    public AdmissionPolicy {
+        requireNonNull(maxQueueWait, "maxQueueWait cannot be null");
+        requireNonNull(tenantKey, "tenantKey cannot be null");
+        tenantWeights = Map.copyOf(requireNonNull(tenantWeights, "tenantWeights cannot be null"));
+        if (maxConcurrentRuns <= 0) {
+            throw new IllegalArgumentException("maxConcurrentRuns must be greater than 0");
+        }
+        if (maxQueuedRuns < 0) {
+            throw new IllegalArgumentException("maxQueuedRuns cannot be negative");
+        }
+        if (maxQueueWait.isNegative()) {
+            throw new IllegalArgumentException("maxQueueWait cannot be negative");
+        }
+        if (tenantWeights.values().stream().anyMatch(weight -> weight <= 0)) {
+            throw new IllegalArgumentException("tenant weights must be greater than 0");
+        }
+    }
+
+    public static AdmissionPolicy of(int maxConcurrentRuns, int maxQueuedRuns, Duration maxQueueWait) {
+        return new AdmissionPolicy(maxConcurrentRuns, maxQueuedRuns, maxQueueWait, DEFAULT_TENANT_KEY, Map.of());
+    }
+
+    public AdmissionPolicy withTenantKey(String tenantKey) {
+        return new AdmissionPolicy(maxConcurrentRuns, maxQueuedRuns, maxQueueWait, tenantKey, tenantWeights);
+    }
+
+    public AdmissionPolicy withTenantWeights(Map<String, Integer> tenantWeights) {
+        return new AdmissionPolicy(maxConcurrentRuns, maxQueuedRuns, maxQueueWait, tenantKey, tenantWeights);
+    }
+
+    int weight(String tenant) {
+        return tenantWeights.getOrDefault(tenant, 1);
+    }
+}
@@ -0,0 +1,279 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.type.EventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Micrometer instrumentation of an agent: runs, graph nodes, streaming and SSE serialization.
+ * Meters are registered once and tagged with the configured {@link AGUIAgentConfig#metricsTags()}.
+ * <p>
+ * The {@link RunStatistics} counters and the {@link ThreadRegistry} evictions are bound as function counters,
+ * so they are reported without being counted twice.
+ */
+public final class AgentMetrics {
+
+    public enum Outcome {
+        COMPLETED,
+        INTERRUPTED,
+        CANCELLED,
+        FAILED
+    }
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final Map<Outcome, Timer> runDurations = new EnumMap<>(Outcome.class);
+    private final Map<EventType, Counter> events = new EnumMap<>(EventType.class);
+    private final Map<String, Timer> nodeDurations = new ConcurrentHashMap<>();
+    private final Timer timeToFirstToken;
+    private final DistributionSummary tokensPerSecond;
+    private final Counter interruptionsRaised;
+    private final Counter interruptionsResumed;
+    private final Timer sseSerialization;
+    private final Timer requestParsing;
+    private final DistributionSummary requestBytes;
+    private final Counter skippedHistoryMessages;
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private final Map<RunPriority, Timer> admissionWait = new EnumMap<>(RunPriority.class);
+
+    AgentMetrics(MeterRegistry registry, Tags tags, RunStatistics statistics, ThreadRegistry threads) {
+        this.registry = requireNonNull(registry, "registry cannot be null");
+        this.tags = requireNonNull(tags, "tags cannot be null");
+        requireNonNull(statistics, "statistics cannot be null");
+        requireNonNull(threads, "threads cannot be null");
+
+        for (var outcome : Outcome.values()) {
+            runDurations.put(outcome, Timer.builder("agui.run.duration")
+                    .description("duration of the agent runs")
+                    .tags(tags)
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (var type : EventType.values()) {
+            events.put(type, Counter.builder("agui.events")
+                    .description("AG-UI events emitted")
+                    .tags(tags)
+                    .tag("type", type.name())
+                    .register(registry));
+        }
+        timeToFirstToken = Timer.builder("agui.run.time.to.first.token")
+                .description("time from the run start to the first streamed token")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+        tokensPerSecond = DistributionSummary.builder("agui.run.tokens.per.second")
+                .description("streamed tokens per second of each run")
+                .tags(tags)
+                .register(registry);
+        interruptionsRaised = Counter.builder("agui.interruptions")
+                .tags(tags)
+                .tag("action", "raised")
+                .register(registry);
+        interruptionsResumed = Counter.builder("agui.interruptions")
+                .tags(tags)
+                .tag("action", "resumed")
+                .register(registry);
+        sseSerialization = Timer.builder("agui.sse.serialization")
+                .description("time to serialize an event into the SSE response")
+                .tags(tags)
+                .register(registry);
+
+        requestParsing = Timer.builder("agui.request.parsing")
+                .description("time to parse the RunAgentInput request")
+                .tags(tags)
+                .register(registry);
+        requestBytes = DistributionSummary.builder("agui.request.size")
+                .description("size of the RunAgentInput request")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        skippedHistoryMessages = Counter.builder("agui.request.messages.skipped")
+                .description("history messages not deserialized because held by the checkpoint")
+                .tags(tags)
+                .register(registry);
+
+        Gauge.builder("agui.runs.active", activeRuns, AtomicInteger::get)
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("agui.threads.active", threads, ThreadRegistry::size)
+                .tags(tags)
+                .register(registry);
+
+        FunctionCounter.builder("agui.runs.cancelled", statistics, RunStatistics::cancelledRuns)
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("agui.model.calls.aborted", statistics, RunStatistics::abortedModelCalls)
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("agui.node.outputs.skipped", statistics, RunStatistics::skippedNodeOutputs)
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("agui.runs.duplicated", statistics, RunStatistics::duplicateRuns)
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("agui.runs.rejected", statistics, RunStatistics::rejectedRuns)
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("agui.threads.evicted", threads, ThreadRegistry::sizeEvictionCount)
+                .tags(tags)
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder("agui.threads.evicted", threads, ThreadRegistry::expiredEvictionCount)
+                .tags(tags)
+                .tag("cause", "expired")
+                .register(registry);
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    void onEvent(BaseEvent event) {
+        final var counter = events.get(event.getType());
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    void interruptionRaised() {
+        interruptionsRaised.increment();
+    }
+
+    void interruptionResumed() {
+        interruptionsResumed.increment();
+    }
+
+    /**
+     * @param nanos time spent serializing a single event
+     */
+    public void sseSerialized(long nanos) {
+        sseSerialization.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param nanos time spent parsing the request
+     * @param bytes size of the request
+     * @param skippedMessages history messages not deserialized
+     */
+    void requestParsed(long nanos, long bytes, int skippedMessages) {
+        requestParsing.record(nanos, TimeUnit.NANOSECONDS);
+        requestBytes.record(bytes);
+        skippedHistoryMessages.increment(skippedMessages);
+    }
+
+    /**
+     * Registers the admission control meters
+     */
+    void bindAdmission(AdmissionController admission) {
+        for (var priority : RunPriority.values()) {
+            admissionWait.put(priority, Timer.builder("agui.admission.wait")
+                    .description("time spent by the runs waiting for admission")
+                    .tags(tags)
+                    .tag("priority", priority.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry));
+            Gauge.builder("agui.admission.queued", admission, controller -> controller.queuedRuns(priority))
+                    .tags(tags)
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry);
+        }
+        Gauge.builder("agui.admission.active", admission, AdmissionController::activeRuns)
+                .tags(tags)
+                .register(registry);
+        for (var cause : AdmissionController.RejectionCause.values()) {
+            FunctionCounter.builder("agui.admission.rejected", admission, controller -> controller.rejectionCount(cause))
+                    .tags(tags)
+                    .tag("cause", cause.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    void admissionWaited(RunPriority priority, long nanos) {
+        final var timer = admissionWait.get(priority);
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer nodeDuration(String node) {
+        return nodeDurations.computeIfAbsent(node, key -> Timer.builder("agui.node.duration")
+                .description("execution time of the graph nodes")
+                .tags(tags)
+                .tag("node", key)
+                .register(registry));
+    }
+
+    /**
+     * Starts the sampling of a run, it must be called on the thread draining the graph output
+     *
+     * @return the run sample
+     */
+    RunSample startRun() {
+        activeRuns.incrementAndGet();
+        return new RunSample(System.nanoTime());
+    }
+
+    /**
+     * Measures of a single run. Like {@link RunContext}, it is confined to the thread draining the graph output.
+     */
+    final class RunSample {
+        private final long startNanos;
+        private long lastNodeNanos;
+        private long firstTokenNanos;
+        private long lastTokenNanos;
+        private long tokens;
+        private boolean stopped;
+
+        private RunSample(long startNanos) {
+            this.startNanos = startNanos;
+            this.lastNodeNanos = startNanos;
+        }
+
+        void onToken() {
+            final var now = System.nanoTime();
+            if (tokens++ == 0) {
+                firstTokenNanos = now;
+                timeToFirstToken.record(now - startNanos, TimeUnit.NANOSECONDS);
+            }
+            lastTokenNanos = now;
+        }
+
+        /**
+         * Records the execution time of the node that produced the output, that is the time since the previous one
+         */
+        void onNodeOutput(NodeOutput<? extends AgentState> output) {
+            final var now = System.nanoTime();
+            nodeDuration(output.node()).record(now - lastNodeNanos, TimeUnit.NANOSECONDS);
+            lastNodeNanos = now;
+        }
+
+        void stop(Outcome outcome) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            activeRuns.decrementAndGet();
+            runDurations.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (tokens > 1 && lastTokenNanos > firstTokenNanos) {
+                tokensPerSecond.record((tokens - 1) * 1e9 / (lastTokenNanos - firstTokenNanos));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Defines how the run loop behaves when the subscriber is slower than the graph.
+ * At most {@code capacity} events wait for downstream demand, so memory per slow connection is bounded.
+ *
+ * @param strategy what to do when {@code capacity} events are pending
+ * @param capacity max number of events waiting for demand
+ */
+public record BackpressurePolicy(Strategy strategy, int capacity) {
+
+    public enum Strategy {
+        /**
+         * the run loop stops pulling from the graph until the subscriber requests more events
+         */
+        BUFFER,
+        /**
+         * text message content deltas are merged into the pending one of the same message,
+         * other events behave as {@link #BUFFER}
+         */
+        COALESCE,
+        /**
+         * the run fails with an overflow error
+         */
+        FAIL
+    }
+
+    public BackpressurePolicy {
+        requireNonNull(strategy, "strategy cannot be null");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+    }
+
+    public static BackpressurePolicy buffer(int capacity) {
+        return new BackpressurePolicy(Strategy.BUFFER, capacity);
+    }
+
+    public static BackpressurePolicy coalesce(int capacity) {
+        return new BackpressurePolicy(Strategy.COALESCE, capacity);
+    }
+
+    public static BackpressurePolicy fail(int capacity) {
+        return new BackpressurePolicy(Strategy.FAIL, capacity);
+    }
+}
@@ -0,0 +1,30 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Micro-batching of consecutive TEXT_MESSAGE_CONTENT deltas of the same message.
+ * A batch is flushed as a single content event when {@code maxLatency} elapses from its first delta,
+ * when it reaches {@code maxSize} characters or before any other event.
+ *
+ * @param maxLatency max time a delta waits before being sent
+ * @param maxSize max number of characters of a merged delta
+ */
+public record CoalescingPolicy(Duration maxLatency, int maxSize) {
+
+    public CoalescingPolicy {
+        requireNonNull(maxLatency, "maxLatency cannot be null");
+        if (maxLatency.isNegative() || maxLatency.isZero()) {
+            throw new IllegalArgumentException("maxLatency must be positive");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+    }
+
+    public static CoalescingPolicy of(Duration maxLatency, int maxSize) {
+        return new CoalescingPolicy(maxLatency, maxSize);
+    }
+}
@@ -0,0 +1,20 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+/**
+ * Defines what happens when a run is submitted on a thread that already has one in progress.
+ * Runs of the same thread share its checkpoint, so they never execute concurrently.
+ */
+public enum ConcurrentRunPolicy {
+    /**
+     * the run waits for the previous ones on the same thread to finish
+     */
+    QUEUE,
+    /**
+     * the run is rejected with a RUN_ERROR event
+     */
+    REJECT,
+    /**
+     * the previous runs on the same thread are cancelled, ending with a RUN_ERROR event, then the run starts
+     */
+    CANCEL_PREVIOUS
+}
@@ -0,0 +1,253 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.event.TextMessageContentEvent;
+import com.agui.server.EventFactory;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Demand-driven bridge between the run loop, pulling from the graph output, and the subscriber.
+ * Events are handed to the sink only when requested, the others wait in a buffer bounded by the {@link BackpressurePolicy}.
+ * When the buffer is full the run loop blocks, so it pulls the next node output only when the subscriber requests more.
+ * <p>
+ * If a {@link CoalescingPolicy} is given, consecutive text content deltas of the same message are merged in an open batch
+ * closed by the latency timer, by the size limit or by any other event.
+ * The timer never blocks: if the buffer is full the expired batch is closed as soon as there is room.
+ */
+final class EventBridge implements Consumer<BaseEvent> {
+
+    private final FluxSink<BaseEvent> sink;
+    private final BackpressurePolicy policy;
+    private final CoalescingPolicy coalescing;
+    private final Scheduler timer;
+    private final ArrayDeque<BaseEvent> pending;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private long requested;
+    private boolean draining;
+    private boolean cancelled;
+
+    // open coalescing batch
+    private final StringBuilder batch = new StringBuilder();
+    private String batchMessageId;
+    private boolean batchExpired;
+    private Disposable batchTimer;
+
+    /**
+     * @param sink the sink to bridge
+     * @param policy the backpressure policy
+     * @param coalescing the coalescing policy, {@code null} to disable it
+     * @param onCancel invoked once when the subscriber cancels
+     */
+    EventBridge(FluxSink<BaseEvent> sink, BackpressurePolicy policy, CoalescingPolicy coalescing, Runnable onCancel) {
+        this.sink = requireNonNull(sink, "sink cannot be null");
+        this.policy = requireNonNull(policy, "policy cannot be null");
+        this.coalescing = coalescing;
+        this.timer = Schedulers.parallel();
+        this.pending = new ArrayDeque<>(Math.min(policy.capacity(), 64));
+        requireNonNull(onCancel, "onCancel cannot be null");
+
+        sink.onCancel(() -> {
+            lock.lock();
+            try {
+                cancelled = true;
+                pending.clear();
+                discardBatchLocked();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            onCancel.run();
+        });
+        sink.onRequest(this::request);
+    }
+
+    boolean isCancelled() {
+        return sink.isCancelled();
+    }
+
+    private void request(long n) {
+        lock.lock();
+        try {
+            requested = Long.MAX_VALUE - requested > n ? requested + n : Long.MAX_VALUE;
+            drainLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Emits the event or parks it until requested, according to the backpressure and coalescing policies.
+     * It blocks the caller while the buffer is full.
+     *
+     * @param event the event to emit
+     */
+    @Override
+    public void accept(BaseEvent event) {
+        requireNonNull(event, "event cannot be null");
+        lock.lock();
+        try {
+            if (coalescing != null && event instanceof TextMessageContentEvent content) {
+                if (batchMessageId == null || !batchMessageId.equals(content.getMessageId())) {
+                    closeBatchLocked();
+                    if (cancelled) {
+                        return;
+                    }
+                    openBatchLocked(content.getMessageId());
+                }
+                batch.append(content.getDelta());
+                if (batch.length() >= coalescing.maxSize()) {
+                    closeBatchLocked();
+                }
+                return;
+            }
+            closeBatchLocked();
+            enqueueLocked(event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the pending events, the sink buffers those not requested yet, and completes
+     */
+    void complete() {
+        lock.lock();
+        try {
+            if (batchMessageId != null) {
+                pending.addLast(batchEventLocked());
+            }
+            while (!pending.isEmpty()) {
+                sink.next(pending.pollFirst());
+            }
+        } finally {
+            lock.unlock();
+        }
+        sink.complete();
+    }
+
+    private void enqueueLocked(BaseEvent event) {
+        while (!cancelled && pending.size() >= policy.capacity()) {
+            switch (policy.strategy()) {
+                case FAIL -> throw Exceptions.failWithOverflow(
+                        "more than %d events waiting for demand".formatted(policy.capacity()));
+                case COALESCE -> {
+                    if (coalesceLocked(event)) {
+                        return;
+                    }
+                    awaitLocked();
+                }
+                case BUFFER -> awaitLocked();
+            }
+        }
+        if (cancelled) {
+            return;
+        }
+        pending.addLast(event);
+        drainLocked();
+    }
+
+    private void awaitLocked() {
+        try {
+            notFull.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw Exceptions.propagate(ex);
+        }
+    }
+
+    private boolean coalesceLocked(BaseEvent event) {
+        if (event instanceof TextMessageContentEvent content &&
+                pending.peekLast() instanceof TextMessageContentEvent last &&
+                Objects.equals(last.getMessageId(), content.getMessageId())) {
+            pending.pollLast();
+            pending.addLast(EventFactory.textMessageContentEvent(last.getMessageId(), last.getDelta() + content.getDelta()));
+            return true;
+        }
+        return false;
+    }
+
+    private void openBatchLocked(String messageId) {
+        batchMessageId = messageId;
+        batchExpired = false;
+        batch.setLength(0);
+        batchTimer = timer.schedule(this::onBatchExpired, coalescing.maxLatency().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void onBatchExpired() {
+        lock.lock();
+        try {
+            if (batchMessageId != null) {
+                batchExpired = true;
+                drainLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private BaseEvent batchEventLocked() {
+        final var event = EventFactory.textMessageContentEvent(batchMessageId, batch.toString());
+        discardBatchLocked();
+        return event;
+    }
+
+    private void discardBatchLocked() {
+        if (batchTimer != null) {
+            batchTimer.dispose();
+            batchTimer = null;
+        }
+        batchMessageId = null;
+        batchExpired = false;
+        batch.setLength(0);
+    }
+
+    private void closeBatchLocked() {
+        if (batchMessageId != null) {
+            enqueueLocked(batchEventLocked());
+        }
+    }
+
+    // sink.next() may synchronously trigger a new request, the flag avoids re-entrant drain loops
+    private void drainLocked() {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        try {
+            do {
+                while (!cancelled && requested > 0 && !pending.isEmpty()) {
+                    if (requested != Long.MAX_VALUE) {
+                        --requested;
+                    }
+                    sink.next(pending.pollFirst());
+                }
+                // an expired batch is closed here, without blocking, as soon as there is room for it
+                if (batchExpired && !cancelled && pending.size() < policy.capacity()) {
+                    pending.addLast(batchEventLocked());
+                    continue;
+                }
+                break;
+            } while (true);
+
+            if (pending.size() < policy.capacity()) {
+                notFull.signalAll();
+            }
+        } finally {
+            draining = false;
+        }
+    }
+}
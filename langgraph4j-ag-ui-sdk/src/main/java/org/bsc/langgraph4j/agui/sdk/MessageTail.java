@@ -0,0 +1,34 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.message.BaseMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trailing messages of a request whose history was skipped, because the thread checkpoint holds it.
+ * The run checks the thread is still known when it starts, the history can't be recovered otherwise.
+ */
+final class MessageTail extends ArrayList<BaseMessage> {
+
+    private final int skipped;
+
+    MessageTail(int capacity, int skipped) {
+        super(capacity);
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return the number of leading messages of the request not deserialized
+     */
+    int skipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the leading messages skipped from the given request messages, 0 if all of them were read
+     */
+    static int skipped(List<BaseMessage> messages) {
+        return messages instanceof MessageTail tail ? tail.skipped : 0;
+    }
+}
@@ -0,0 +1,50 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffering of the run events for the SSE reconnection with {@code Last-Event-ID}.
+ * The last {@code eventsPerRun} events of every active or recently finished run are kept, so a client that lost
+ * the connection resumes the run instead of executing it again.
+ * The buffered runs also make the run ids idempotent, a retry or a double submit attaches to the existing run.
+ *
+ * @param eventsPerRun size of the ring buffer of each run
+ * @param maxBufferedEvents global cap of the buffered events. Each run retains at most {@code eventsPerRun} events,
+ *                          so it bounds the number of buffered runs to {@code maxBufferedEvents / eventsPerRun}
+ * @param retention how long the events of a finished run are kept
+ * @param detachedTimeout how long an active run keeps running without subscribers, waiting for a reconnection
+ */
+public record ReplayPolicy(int eventsPerRun, int maxBufferedEvents, Duration retention, Duration detachedTimeout) {
+
+    public ReplayPolicy {
+        requireNonNull(retention, "retention cannot be null");
+        requireNonNull(detachedTimeout, "detachedTimeout cannot be null");
+        if (eventsPerRun <= 0) {
+            throw new IllegalArgumentException("eventsPerRun must be greater than 0");
+        }
+        if (maxBufferedEvents < eventsPerRun) {
+            throw new IllegalArgumentException("maxBufferedEvents must be greater than or equal to eventsPerRun");
+        }
+        if (retention.isNegative()) {
+            throw new IllegalArgumentException("retention cannot be negative");
+        }
+        if (detachedTimeout.isNegative()) {
+            throw new IllegalArgumentException("detachedTimeout cannot be negative");
+        }
+    }
+
+    /**
+     * @param eventsPerRun size of the ring buffer of each run
+     * @param maxBufferedEvents global cap of the buffered events
+     * @return a policy keeping finished runs for a minute and waiting 30 seconds for a reconnection
+     */
+    public static ReplayPolicy of(int eventsPerRun, int maxBufferedEvents) {
+        return new ReplayPolicy(eventsPerRun, maxBufferedEvents, Duration.ofMinutes(1), Duration.ofSeconds(30));
+    }
+
+    int maxBufferedRuns() {
+        return maxBufferedEvents / eventsPerRun;
+    }
+}
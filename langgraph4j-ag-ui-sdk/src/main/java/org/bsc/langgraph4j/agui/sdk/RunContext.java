@@ -0,0 +1,190 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.agent.RunAgentParameters;
+import com.agui.core.event.BaseEvent;
+import com.agui.core.message.Role;
+import com.agui.server.EventFactory;
+import org.bsc.langgraph4j.LG4JLoggable;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.streaming.StreamingOutput;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * State of a single agent run.
+ * It holds the streaming text message and the step state machines and it is confined to the thread draining
+ * the graph output, so it is never shared among runs.
+ */
+final class RunContext implements LG4JLoggable {
+
+    private final RunAgentParameters input;
+    private final Supplier<String> messageIdSupplier;
+    private final boolean stepEvents;
+    private String streamingMessageId;
+    private String stepName;
+    private long stepStartNanos;
+    private long lastNodeOutputNanos;
+    private long lastNodeOutputMillis;
+    private long stepEndNanos;
+    private long stepEndMillis;
+
+    RunContext(RunAgentParameters input, Supplier<String> messageIdSupplier, boolean stepEvents) {
+        this.input = requireNonNull(input, "input cannot be null");
+        this.messageIdSupplier = requireNonNull(messageIdSupplier, "messageIdSupplier cannot be null");
+        this.stepEvents = stepEvents;
+    }
+
+    RunContext(RunAgentParameters input, Supplier<String> messageIdSupplier) {
+        this(input, messageIdSupplier, false);
+    }
+
+    /**
+     * Marks the start of the graph execution, the first step starts from here
+     */
+    void start() {
+        lastNodeOutputNanos = System.nanoTime();
+        lastNodeOutputMillis = System.currentTimeMillis();
+    }
+
+    RunAgentParameters input() {
+        return input;
+    }
+
+    String newMessageId() {
+        return messageIdSupplier.get();
+    }
+
+    boolean isStreaming() {
+        return streamingMessageId != null;
+    }
+
+    private static boolean isStep(String node) {
+        return node != null && !StateGraph.START.equals(node) && !StateGraph.END.equals(node);
+    }
+
+    private void startStep(String node, Consumer<BaseEvent> emitter) {
+        stepName = node;
+        stepStartNanos = lastNodeOutputNanos;
+        final var event = EventFactory.stepStartedEvent(node);
+        event.setTimestamp(lastNodeOutputMillis);
+        emitter.accept(event);
+    }
+
+    private void finishStep(long endNanos, long endMillis, Consumer<BaseEvent> emitter) {
+        final var durationMillis = TimeUnit.NANOSECONDS.toMillis(endNanos - stepStartNanos);
+        log.debug("step '{}' finished in {} ms", stepName, durationMillis);
+        final var event = EventFactory.stepFinishedEvent(stepName);
+        event.setTimestamp(endMillis);
+        event.setRawEvent(Map.of("durationMs", durationMillis));
+        emitter.accept(event);
+        stepName = null;
+    }
+
+    /**
+     * Enters the step of the node that produced the output, emitting its started event if it is a new one.
+     * A step starts when the previous node completed, so the started event of a node that doesn't stream
+     * is emitted just before the finished one. It has no effect if step events are disabled.
+     *
+     * @param node the node that produced the output
+     * @param completed whether the output is the final one of the node, rather than a streaming one
+     * @param emitter the events consumer
+     */
+    void enterStep(String node, boolean completed, Consumer<BaseEvent> emitter) {
+        if (!stepEvents) {
+            return;
+        }
+        if (stepName != null && !stepName.equals(node)) {
+            closeStep(emitter);
+        }
+        if (stepName == null && isStep(node)) {
+            startStep(node, emitter);
+        }
+        if (completed) {
+            stepEndNanos = System.nanoTime();
+            stepEndMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Exits the step entered by the last completed node output, emitting its finished event with the duration
+     *
+     * @param emitter the events consumer
+     */
+    void exitStep(Consumer<BaseEvent> emitter) {
+        if (!stepEvents) {
+            return;
+        }
+        if (stepName != null) {
+            finishStep(stepEndNanos, stepEndMillis, emitter);
+        }
+        lastNodeOutputNanos = stepEndNanos;
+        lastNodeOutputMillis = stepEndMillis;
+    }
+
+    /**
+     * Ends the pending step, if any, eg. of a node that streamed without completing
+     *
+     * @param emitter the events consumer
+     */
+    void closeStep(Consumer<BaseEvent> emitter) {
+        if (stepName != null) {
+            finishStep(System.nanoTime(), System.currentTimeMillis(), emitter);
+        }
+    }
+
+    void onStreamingOutput(StreamingOutput<? extends AgentState> output, Consumer<BaseEvent> emitter) {
+
+        if (output.isStreamingEnd()) { // is streaming out ended
+            log.trace("STREAMING END");
+            closeStreaming(emitter);
+            return;
+        }
+
+        if (streamingMessageId == null) {
+            log.trace("STREAMING START");
+            streamingMessageId = newMessageId();
+            emitter.accept(EventFactory.textMessageStartEvent(streamingMessageId, Role.assistant.name()));
+        }
+
+        if (output.chunk() == null || output.chunk().isEmpty()) {
+            log.trace("STREAMING CHUNK IS EMPTY");
+        } else {
+            log.trace("{}", output.chunk());
+            emitter.accept(EventFactory.textMessageContentEvent(streamingMessageId, output.chunk()));
+        }
+    }
+
+    /**
+     * Ends the pending streaming message, if any
+     *
+     * @param emitter the events consumer
+     */
+    void closeStreaming(Consumer<BaseEvent> emitter) {
+        if (streamingMessageId != null) {
+            emitter.accept(EventFactory.textMessageEndEvent(streamingMessageId));
+            streamingMessageId = null;
+        }
+    }
+
+    void onApproval(Approval approval, Consumer<BaseEvent> emitter) {
+        emitter.accept(EventFactory.toolCallStartEvent(
+                newMessageId(),
+                approval.toolName(),
+                approval.toolId()
+        ));
+
+        emitter.accept(EventFactory.toolCallArgsEvent(
+                approval.toolArgs(),
+                approval.toolId()
+        ));
+
+        emitter.accept(EventFactory.toolCallEndEvent(
+                approval.toolId()));
+    }
+}
@@ -0,0 +1,36 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+/**
+ * Priority classes of the runs waiting for admission, in decreasing order of priority.
+ * While several classes have waiting runs, the freed slots are shared among them in proportion to their shares,
+ * so the higher classes are admitted first most of the time, but the lower ones are never starved.
+ *
+ * @see AdmissionController
+ */
+public enum RunPriority {
+    /**
+     * the run resumes a thread interrupted for approval, a user is waiting on it
+     */
+    RESUME(4),
+    /**
+     * the run follows up a conversation thread known by the agent
+     */
+    FOLLOW_UP(2),
+    /**
+     * the run starts a new conversation thread
+     */
+    NEW(1);
+
+    private final int share;
+
+    RunPriority(int share) {
+        this.share = share;
+    }
+
+    /**
+     * @return the share of the freed slots going to this class while the other ones have waiting runs too
+     */
+    public int share() {
+        return share;
+    }
+}
@@ -0,0 +1,344 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import org.bsc.langgraph4j.LG4JLoggable;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Per-run ring buffers of the last events, used to resume an SSE stream from its {@code Last-Event-ID}.
+ * <p>
+ * A buffered run is subscribed by the buffer itself, so it survives the drop of the client connection
+ * for {@link ReplayPolicy#detachedTimeout()}, then it is cancelled. Its demand follows the slowest subscriber,
+ * so no run retains more than {@link ReplayPolicy#eventsPerRun()} events: a slow client slows down the run.
+ * Runs are kept in LRU order: finished runs expire after {@link ReplayPolicy#retention()}, and when more than
+ * {@link ReplayPolicy#maxBufferedRuns()} are buffered the eldest are dropped, finished ones first.
+ * A dropped active run keeps streaming to its subscribers, but it can no longer be resumed.
+ */
+public final class RunReplayBuffer implements LG4JLoggable {
+
+    /**
+     * The requested events are no longer buffered
+     */
+    public static class ReplayGapException extends IllegalStateException {
+        public ReplayGapException(String runId, long lastEventId) {
+            super("events of run '%s' after %d are no longer buffered".formatted(runId, lastEventId));
+        }
+    }
+
+    private final class BufferedRun {
+        final String runId;
+        final Supplier<? extends Flux<? extends BaseEvent>> events;
+        final Sinks.Many<SequencedEvent> sink;
+        final AtomicLong lastId = new AtomicLong();
+        // guarded by the buffer lock
+        int subscribers;
+        Disposable detachedTimer;
+        boolean started;
+        volatile BaseSubscriber<BaseEvent> source;
+        long finishedNanos;
+        volatile boolean finished;
+        // guarded by this run: last event delivered to each live subscriber, events requested to the source
+        private final List<AtomicLong> cursors = new ArrayList<>();
+        private boolean subscribed;
+        private long requested;
+
+        BufferedRun(String runId, Supplier<? extends Flux<? extends BaseEvent>> events) {
+            this.runId = runId;
+            this.events = events;
+            this.sink = Sinks.many().replay().limit(policy.eventsPerRun());
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+
+        // called once, on the first subscription, so no event is lost before it
+        void start() {
+            final var subscriber = new BaseSubscriber<BaseEvent>() {
+                @Override
+                protected void hookOnSubscribe(Subscription subscription) {
+                    synchronized (BufferedRun.this) {
+                        subscribed = true;
+                    }
+                    replenish();
+                }
+
+                @Override
+                protected void hookOnNext(BaseEvent event) {
+                    sink.emitNext(new SequencedEvent(lastId.incrementAndGet(), event), Sinks.EmitFailureHandler.FAIL_FAST);
+                    replenish();
+                }
+
+                @Override
+                protected void hookOnError(Throwable error) {
+                    finish();
+                    sink.emitError(error, Sinks.EmitFailureHandler.FAIL_FAST);
+                }
+
+                @Override
+                protected void hookOnComplete() {
+                    finish();
+                    sink.emitComplete(Sinks.EmitFailureHandler.FAIL_FAST);
+                }
+            };
+            source = subscriber;
+            events.get().subscribe(subscriber);
+        }
+
+        private void finish() {
+            finishedNanos = System.nanoTime();
+            finished = true;
+        }
+
+        /**
+         * The source is requested up to {@link ReplayPolicy#eventsPerRun()} events ahead of the slowest subscriber,
+         * so the events retained for it never exceed the ring. Without subscribers it runs ahead of the last event.
+         * Demand is issued in batches of a quarter of the ring, outside the monitor since it may emit synchronously.
+         */
+        void replenish() {
+            final long n;
+            synchronized (this) {
+                if (!subscribed) {
+                    return;
+                }
+                var floor = lastId.get();
+                for (var cursor : cursors) {
+                    floor = Math.min(floor, cursor.get());
+                }
+                n = floor + policy.eventsPerRun() - requested;
+                if (n < Math.max(1, policy.eventsPerRun() / 4)) {
+                    return;
+                }
+                requested += n;
+            }
+            source.request(n);
+        }
+
+        private synchronized void track(AtomicLong cursor) {
+            cursor.set(firstBufferedId() - 1);
+            cursors.add(cursor);
+        }
+
+        private synchronized void untrack(AtomicLong cursor) {
+            cursors.remove(cursor);
+        }
+
+        /**
+         * @return the oldest event still buffered
+         */
+        long firstBufferedId() {
+            return Math.max(1, lastId.get() - policy.eventsPerRun() + 1);
+        }
+
+        Flux<SequencedEvent> attach() {
+            return Flux.defer(() -> {
+                final var cursor = new AtomicLong();
+                return sink.asFlux()
+                        .doOnSubscribe(s -> {
+                            track(cursor);
+                            onAttach(this);
+                        })
+                        .doOnNext(event -> {
+                            cursor.set(event.id());
+                            replenish();
+                        })
+                        .doFinally(signal -> {
+                            untrack(cursor);
+                            onDetach(this);
+                            replenish();
+                        });
+            });
+        }
+    }
+
+    private final ReplayPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, BufferedRun> runs = new LinkedHashMap<>(16, 0.75f, true);
+
+    public RunReplayBuffer(ReplayPolicy policy) {
+        this.policy = requireNonNull(policy, "policy cannot be null");
+    }
+
+    public ReplayPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * @return number of buffered runs
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return runs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a run buffering its events. If a run with the same id is already buffered, in flight or recently finished,
+     * nothing is executed and the returned events are the ones of that run, from the first one.
+     *
+     * @param runId the run id
+     * @param run supplies the run events, it is subscribed once
+     * @param onDuplicate invoked when the run is already buffered
+     * @return the sequenced events of the run
+     * @throws ReplayGapException if the run is already buffered, but its first events have been overwritten
+     */
+    public Flux<SequencedEvent> run(String runId, Supplier<? extends Flux<? extends BaseEvent>> run, Runnable onDuplicate) {
+        requireNonNull(runId, "runId cannot be null");
+        requireNonNull(run, "run cannot be null");
+        requireNonNull(onDuplicate, "onDuplicate cannot be null");
+
+        final BufferedRun existing;
+        final var bufferedRun = new BufferedRun(runId, run);
+        lock.lock();
+        try {
+            evictLocked(System.nanoTime());
+            existing = runs.putIfAbsent(runId, bufferedRun);
+            if (existing == null) {
+                evictLocked(System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (existing == null) {
+            return bufferedRun.attach();
+        }
+        log.debug("run '{}' already buffered, attached to it", runId);
+        onDuplicate.run();
+        return replay(existing, 0);
+    }
+
+    /**
+     * Resumes a buffered run from the given event
+     *
+     * @param runId the run id
+     * @param lastEventId the last event received by the client
+     * @return the events after {@code lastEventId}, then the live ones if the run is still active.
+     * Empty if the run is not buffered
+     * @throws ReplayGapException if the events following {@code lastEventId} have already been overwritten
+     */
+    public Optional<Flux<SequencedEvent>> resume(String runId, long lastEventId) {
+        requireNonNull(runId, "runId cannot be null");
+
+        final BufferedRun bufferedRun;
+        lock.lock();
+        try {
+            evictLocked(System.nanoTime());
+            bufferedRun = runs.get(runId);
+        } finally {
+            lock.unlock();
+        }
+        if (bufferedRun == null) {
+            return Optional.empty();
+        }
+        log.debug("run '{}' resumed after event {}", runId, lastEventId);
+        return Optional.of(replay(bufferedRun, lastEventId));
+    }
+
+    private Flux<SequencedEvent> replay(BufferedRun bufferedRun, long lastEventId) {
+        if (bufferedRun.firstBufferedId() > lastEventId + 1) {
+            throw new ReplayGapException(bufferedRun.runId, lastEventId);
+        }
+        // events may have been overwritten between the check and the subscription
+        return bufferedRun.attach()
+                .switchOnFirst((signal, events) -> (signal.hasValue() && signal.get().id() > lastEventId + 1)
+                        ? Flux.error(new ReplayGapException(bufferedRun.runId, lastEventId))
+                        : events)
+                .filter(event -> event.id() > lastEventId);
+    }
+
+    private void onAttach(BufferedRun run) {
+        final boolean first;
+        lock.lock();
+        try {
+            first = !run.started;
+            run.started = true;
+            run.subscribers++;
+            if (run.detachedTimer != null) {
+                run.detachedTimer.dispose();
+                run.detachedTimer = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (first) {
+            run.start();
+        }
+    }
+
+    private void onDetach(BufferedRun run) {
+        lock.lock();
+        try {
+            if (--run.subscribers > 0 || run.isFinished()) {
+                return;
+            }
+            run.detachedTimer = Schedulers.parallel().schedule(() -> cancelDetached(run),
+                    policy.detachedTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancelDetached(BufferedRun run) {
+        lock.lock();
+        try {
+            if (run.subscribers > 0 || run.isFinished()) {
+                return;
+            }
+            runs.remove(run.runId, run);
+        } finally {
+            lock.unlock();
+        }
+        log.debug("run '{}' cancelled, no reconnection within {}", run.runId, policy.detachedTimeout());
+        if (run.source != null) {
+            run.source.dispose();
+        }
+    }
+
+    private boolean isExpired(BufferedRun run, long now) {
+        return run.isFinished() && now - run.finishedNanos > policy.retention().toNanos();
+    }
+
+    // runs are kept in access order, the eldest finished ones are dropped first
+    private void evictLocked(long now) {
+        runs.values().removeIf(run -> isExpired(run, now));
+
+        final var excess = runs.size() - policy.maxBufferedRuns();
+        if (excess <= 0) {
+            return;
+        }
+        final var finished = runs.values().iterator();
+        var removed = 0;
+        while (removed < excess && finished.hasNext()) {
+            if (finished.next().isFinished()) {
+                finished.remove();
+                ++removed;
+            }
+        }
+        final var eldest = runs.values().iterator();
+        while (removed < excess && eldest.hasNext()) {
+            final var run = eldest.next();
+            eldest.remove();
+            ++removed;
+            log.debug("run '{}' dropped from the replay buffer", run.runId);
+        }
+    }
+}
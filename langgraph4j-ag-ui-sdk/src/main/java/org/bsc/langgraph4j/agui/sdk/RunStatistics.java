@@ -0,0 +1,71 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters about the runs executed by an agent
+ */
+public final class RunStatistics {
+
+    private final LongAdder cancelledRuns = new LongAdder();
+    private final LongAdder abortedModelCalls = new LongAdder();
+    private final LongAdder skippedNodeOutputs = new LongAdder();
+    private final LongAdder duplicateRuns = new LongAdder();
+    private final LongAdder rejectedRuns = new LongAdder();
+
+    RunStatistics() {}
+
+    void runCancelled( boolean modelCallAborted ) {
+        cancelledRuns.increment();
+        if( modelCallAborted ) {
+            abortedModelCalls.increment();
+        }
+    }
+
+    void nodeOutputSkipped() {
+        skippedNodeOutputs.increment();
+    }
+
+    void runDuplicated() {
+        duplicateRuns.increment();
+    }
+
+    void runRejected() {
+        rejectedRuns.increment();
+    }
+
+    /**
+     * @return number of runs cancelled because the client went away
+     */
+    public long cancelledRuns() {
+        return cancelledRuns.sum();
+    }
+
+    /**
+     * @return number of model calls aborted while streaming, due to run cancellation
+     */
+    public long abortedModelCalls() {
+        return abortedModelCalls.sum();
+    }
+
+    /**
+     * @return number of node outputs produced after the cancellation and not converted to events
+     */
+    public long skippedNodeOutputs() {
+        return skippedNodeOutputs.sum();
+    }
+
+    /**
+     * @return number of runs submitted again with the same id, attached to the existing execution
+     */
+    public long duplicateRuns() {
+        return duplicateRuns.sum();
+    }
+
+    /**
+     * @return number of runs rejected because their thread had a run in progress
+     */
+    public long rejectedRuns() {
+        return rejectedRuns.sum();
+    }
+}
@@ -0,0 +1,13 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+
+/**
+ * An event of a run with its sequence id, monotonic within the run and starting from 1.
+ * It is sent as the SSE {@code id:} field.
+ *
+ * @param id the sequence id
+ * @param event the event
+ */
+public record SequencedEvent(long id, BaseEvent event) {
+}
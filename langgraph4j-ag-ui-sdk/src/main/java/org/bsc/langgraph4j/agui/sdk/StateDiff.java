@@ -0,0 +1,107 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Structural JSON Patch (RFC 6902) diff between two states.
+ * Maps are compared key by key and lists element by element, recursively, and identical references are skipped
+ * without looking into them. Since graph states share the unchanged values among steps, the cost is proportional
+ * to what changed: eg. a message appended to a long {@code messages} list is a single {@code add} operation
+ * after a reference scan of the list. Only when a list has changed size and its elements are copies, eg. restored by
+ * a serializing checkpoint saver, the scan goes on comparing them with {@code equals}, rather than replacing the list.
+ */
+final class StateDiff {
+
+    private StateDiff() {}
+
+    /**
+     * @param before the previous state
+     * @param after the current state
+     * @return the patch operations turning {@code before} into {@code after}, empty if nothing changed
+     */
+    static List<Object> diff(Map<String, ?> before, Map<String, ?> after) {
+        final var ops = new ArrayList<Object>();
+        diffMaps("", before, after, ops);
+        return ops;
+    }
+
+    private static void diff(String path, Object before, Object after, List<Object> ops) {
+        if (before == after) {
+            return;
+        }
+        if (before instanceof Map<?, ?> beforeMap && after instanceof Map<?, ?> afterMap) {
+            diffMaps(path, beforeMap, afterMap, ops);
+        } else if (before instanceof List<?> beforeList && after instanceof List<?> afterList) {
+            diffLists(path, beforeList, afterList, ops);
+        } else if (!Objects.equals(before, after)) {
+            ops.add(op("replace", path, after));
+        }
+    }
+
+    private static void diffMaps(String path, Map<?, ?> before, Map<?, ?> after, List<Object> ops) {
+        for (var key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                ops.add(op("remove", path + '/' + escape(key), null));
+            }
+        }
+        for (var entry : after.entrySet()) {
+            final var childPath = path + '/' + escape(entry.getKey());
+            if (!before.containsKey(entry.getKey())) {
+                ops.add(op("add", childPath, entry.getValue()));
+            } else {
+                diff(childPath, before.get(entry.getKey()), entry.getValue(), ops);
+            }
+        }
+    }
+
+    private static void diffLists(String path, List<?> before, List<?> after, List<Object> ops) {
+        final var min = Math.min(before.size(), after.size());
+        var common = 0;
+        while (common < min && before.get(common) == after.get(common)) {
+            ++common;
+        }
+        if (common < min && before.size() != after.size()) {
+            while (common < min && Objects.equals(before.get(common), after.get(common))) {
+                ++common;
+            }
+        }
+        if (common == before.size()) { // appended
+            for (int i = common; i < after.size(); ++i) {
+                ops.add(op("add", path + "/-", after.get(i)));
+            }
+        } else if (common == after.size()) { // truncated, removed from the tail so indexes stay valid
+            for (int i = before.size() - 1; i >= common; --i) {
+                ops.add(op("remove", path + '/' + i, null));
+            }
+        } else if (before.size() == after.size()) { // changed in place
+            for (int i = common; i < after.size(); ++i) {
+                diff(path + '/' + i, before.get(i), after.get(i), ops);
+            }
+        } else {
+            ops.add(op("replace", path, after));
+        }
+    }
+
+    private static Map<String, Object> op(String op, String path, Object value) {
+        final var result = new LinkedHashMap<String, Object>(4);
+        result.put("op", op);
+        result.put("path", path);
+        if (!"remove".equals(op)) {
+            result.put("value", value);
+        }
+        return result;
+    }
+
+    // JSON Pointer escaping (RFC 6901)
+    private static String escape(Object key) {
+        final var token = String.valueOf(key);
+        if (token.indexOf('~') < 0 && token.indexOf('/') < 0) {
+            return token;
+        }
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+}
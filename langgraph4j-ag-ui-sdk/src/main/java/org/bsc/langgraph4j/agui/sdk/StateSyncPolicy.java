@@ -0,0 +1,31 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Synchronization of the graph state with the client.
+ * A STATE_SNAPSHOT is sent at the beginning of the run, then every node output sends only the JSON Patch
+ * of what changed as a STATE_DELTA.
+ *
+ * @param keys the state keys to synchronize, empty means all of them
+ */
+public record StateSyncPolicy(Set<String> keys) {
+
+    public StateSyncPolicy {
+        keys = Set.copyOf(requireNonNull(keys, "keys cannot be null"));
+    }
+
+    public static StateSyncPolicy allKeys() {
+        return new StateSyncPolicy(Set.of());
+    }
+
+    public static StateSyncPolicy of(String... keys) {
+        return new StateSyncPolicy(Set.of(keys));
+    }
+
+    boolean isSynchronized(String key) {
+        return keys.isEmpty() || keys.contains(key);
+    }
+}
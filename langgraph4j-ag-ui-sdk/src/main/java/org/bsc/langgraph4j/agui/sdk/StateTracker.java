@@ -0,0 +1,53 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.server.EventFactory;
+import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the client in sync with the graph state of a single run: the first node output is sent as a STATE_SNAPSHOT,
+ * the next ones as a STATE_DELTA holding the JSON Patch from the previous state.
+ * Like {@link RunContext}, it is confined to the thread draining the graph output.
+ */
+final class StateTracker {
+
+    private final StateSyncPolicy policy;
+    private Map<String, Object> lastState;
+
+    StateTracker(StateSyncPolicy policy) {
+        this.policy = requireNonNull(policy, "policy cannot be null");
+    }
+
+    private Map<String, Object> synchronizedState(AgentState state) {
+        final var result = new LinkedHashMap<String, Object>();
+        for (var entry : state.data().entrySet()) {
+            if (policy.isSynchronized(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    void onNodeOutput(NodeOutput<? extends AgentState> output, Consumer<BaseEvent> emitter) {
+        if (output.state() == null) {
+            return;
+        }
+        final var state = synchronizedState(output.state());
+        if (lastState == null) {
+            emitter.accept(EventFactory.stateSnapshotEvent(state));
+        } else {
+            final var delta = StateDiff.diff(lastState, state);
+            if (!delta.isEmpty()) {
+                emitter.accept(EventFactory.stateDeltaEvent(delta));
+            }
+        }
+        lastState = state;
+    }
+}
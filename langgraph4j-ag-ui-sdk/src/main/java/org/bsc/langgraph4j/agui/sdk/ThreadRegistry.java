@@ -0,0 +1,302 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import org.bsc.langgraph4j.LG4JLoggable;
+import org.bsc.langgraph4j.utils.TryFunction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded registry of the conversation threads known by the agent.
+ * Threads are evicted in LRU order once {@code maxSize} is exceeded, or when they have been idle longer than {@code idleTtl}.
+ * A thread pinned by a run in progress is never evicted, it becomes a candidate again once unpinned, so the registry
+ * may exceed {@code maxSize} while the eldest threads are all running.
+ * Critical sections only touch the map, graph building and eviction listeners are invoked outside the lock.
+ */
+public final class ThreadRegistry implements LG4JLoggable {
+
+    public enum EvictionCause {
+        SIZE,
+        EXPIRED
+    }
+
+    @FunctionalInterface
+    public interface EvictionListener {
+        void onEviction(String threadId, GraphData graphData, EvictionCause cause);
+    }
+
+    private static final class Entry {
+        GraphData graphData;
+        long lastAccessNanos;
+        // number of runs in progress on the thread
+        int pins;
+
+        Entry(GraphData graphData, long lastAccessNanos) {
+            this.graphData = graphData;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+
+    private record Eviction(String threadId, GraphData graphData, EvictionCause cause) {}
+
+    private final int maxSize;
+    private final long idleTtlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<EvictionListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expiredEvictions = new LongAdder();
+
+    /**
+     * @param maxSize max number of threads kept
+     * @param idleTtl max idle time of a thread, {@link Duration#ZERO} means no expiration
+     */
+    public ThreadRegistry(int maxSize, Duration idleTtl) {
+        requireNonNull(idleTtl, "idleTtl cannot be null");
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        if (idleTtl.isNegative()) {
+            throw new IllegalArgumentException("idleTtl cannot be negative");
+        }
+        this.maxSize = maxSize;
+        this.idleTtlNanos = idleTtl.toNanos();
+    }
+
+    public void addEvictionListener(EvictionListener listener) {
+        listeners.add(requireNonNull(listener, "listener cannot be null"));
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of threads evicted because the registry was full
+     */
+    public long sizeEvictionCount() {
+        return sizeEvictions.sum();
+    }
+
+    /**
+     * @return number of threads evicted because idle longer than the ttl
+     */
+    public long expiredEvictionCount() {
+        return expiredEvictions.sum();
+    }
+
+    /**
+     * @return whether the thread is known and not expired
+     */
+    boolean contains(String threadId) {
+        lock.lock();
+        try {
+            final var entry = entries.get(threadId);
+            return entry != null && !isExpired(entry, System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Optional<GraphData> get(String threadId) {
+        return lookup(threadId, false);
+    }
+
+    private Optional<GraphData> lookup(String threadId, boolean pin) {
+        final var evicted = new ArrayList<Eviction>();
+        lock.lock();
+        try {
+            final var now = System.nanoTime();
+            var entry = entries.get(threadId);
+            if (entry != null && isExpired(entry, now)) {
+                entries.remove(threadId);
+                evicted.add(new Eviction(threadId, entry.graphData, EvictionCause.EXPIRED));
+                entry = null;
+            }
+            if (entry == null) {
+                return Optional.empty();
+            }
+            entry.lastAccessNanos = now;
+            if (pin) {
+                entry.pins++;
+            }
+            return Optional.of(entry.graphData);
+        } finally {
+            lock.unlock();
+            notifyEvictions(evicted);
+        }
+    }
+
+    /**
+     * Returns the thread graph, creating it outside the lock if absent.
+     * When two callers race on the same new thread, the first stored graph wins.
+     */
+    <Ex extends Throwable> GraphData computeIfAbsent(String threadId, TryFunction<String, GraphData, Ex> factory) throws Ex {
+        return compute(threadId, factory, false);
+    }
+
+    /**
+     * Returns the thread graph as {@link #computeIfAbsent(String, TryFunction)}, and keeps the thread from being evicted
+     * until {@link #unpin(String)}
+     */
+    <Ex extends Throwable> GraphData pin(String threadId, TryFunction<String, GraphData, Ex> factory) throws Ex {
+        return compute(threadId, factory, true);
+    }
+
+    /**
+     * Pins the thread as {@link #pin(String, TryFunction)}, only if it is known
+     *
+     * @return the thread graph, or empty if the thread is unknown or was evicted
+     */
+    Optional<GraphData> pinIfPresent(String threadId) {
+        return lookup(threadId, true);
+    }
+
+    /**
+     * Lets the thread be evicted again once its run is over, it counts as accessed now
+     */
+    void unpin(String threadId) {
+        final var evicted = new ArrayList<Eviction>();
+        lock.lock();
+        try {
+            final var now = System.nanoTime();
+            final var entry = entries.get(threadId);
+            if (entry != null && entry.pins > 0) {
+                entry.pins--;
+                entry.lastAccessNanos = now;
+            }
+            // evictions skipped while the thread was pinned
+            evictLocked(now, evicted);
+        } finally {
+            lock.unlock();
+            notifyEvictions(evicted);
+        }
+    }
+
+    private <Ex extends Throwable> GraphData compute(String threadId, TryFunction<String, GraphData, Ex> factory, boolean pin) throws Ex {
+        var result = lookup(threadId, pin);
+        if (result.isPresent()) {
+            return result.get();
+        }
+        final var graphData = requireNonNull(factory.tryApply(threadId), "graph data cannot be null");
+
+        final var evicted = new ArrayList<Eviction>();
+        lock.lock();
+        try {
+            final var now = System.nanoTime();
+            final var entry = entries.get(threadId);
+            if (entry != null) {
+                entry.lastAccessNanos = now;
+                if (pin) {
+                    entry.pins++;
+                }
+                return entry.graphData;
+            }
+            final var created = new Entry(graphData, now);
+            if (pin) {
+                created.pins = 1;
+            }
+            entries.put(threadId, created);
+            evictLocked(now, evicted);
+            return graphData;
+        } finally {
+            lock.unlock();
+            notifyEvictions(evicted);
+        }
+    }
+
+    void put(String threadId, GraphData graphData) {
+        requireNonNull(graphData, "graphData cannot be null");
+        final var evicted = new ArrayList<Eviction>();
+        lock.lock();
+        try {
+            final var now = System.nanoTime();
+            // keeps the pins of the runs in progress
+            final var entry = entries.get(threadId);
+            if (entry != null) {
+                entry.graphData = graphData;
+                entry.lastAccessNanos = now;
+            } else {
+                entries.put(threadId, new Entry(graphData, now));
+            }
+            evictLocked(now, evicted);
+        } finally {
+            lock.unlock();
+            notifyEvictions(evicted);
+        }
+    }
+
+    /**
+     * Evicts the threads idle longer than the ttl. Expired threads are also swept on every insertion.
+     */
+    public void evictExpired() {
+        final var evicted = new ArrayList<Eviction>();
+        lock.lock();
+        try {
+            evictLocked(System.nanoTime(), evicted);
+        } finally {
+            lock.unlock();
+            notifyEvictions(evicted);
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return entry.pins == 0 && idleTtlNanos > 0 && now - entry.lastAccessNanos > idleTtlNanos;
+    }
+
+    // entries are kept in access order, so the eldest ones are the least recently used and the first to expire,
+    // pinned ones are skipped: releasing their checkpoints would pull the state from under the running graph
+    private void evictLocked(long now, List<Eviction> evicted) {
+        final var iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final var eldest = iterator.next();
+            if (eldest.getValue().pins > 0) {
+                continue;
+            }
+            final EvictionCause cause;
+            if (entries.size() > maxSize) {
+                cause = EvictionCause.SIZE;
+            } else if (isExpired(eldest.getValue(), now)) {
+                cause = EvictionCause.EXPIRED;
+            } else {
+                break;
+            }
+            iterator.remove();
+            evicted.add(new Eviction(eldest.getKey(), eldest.getValue().graphData, cause));
+        }
+    }
+
+    private void notifyEvictions(List<Eviction> evicted) {
+        for (var eviction : evicted) {
+            switch (eviction.cause()) {
+                case SIZE -> sizeEvictions.increment();
+                case EXPIRED -> expiredEvictions.increment();
+            }
+            log.debug("thread '{}' evicted ({})", eviction.threadId(), eviction.cause());
+            for (var listener : listeners) {
+                try {
+                    listener.onEviction(eviction.threadId(), eviction.graphData(), eviction.cause());
+                } catch (Exception ex) {
+                    log.warn("eviction listener error on thread '{}'", eviction.threadId(), ex);
+                }
+            }
+        }
+    }
+}
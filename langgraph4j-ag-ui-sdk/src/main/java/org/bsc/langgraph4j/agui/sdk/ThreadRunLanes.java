@@ -0,0 +1,149 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import org.bsc.langgraph4j.LG4JLoggable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Serializes the runs of each conversation thread according to the {@link ConcurrentRunPolicy}.
+ * <p>
+ * Every thread has a lane, the chain of its runs: the map only holds the last one, and each run waits for the release
+ * of its predecessor. There is no global lock, runs of different threads never wait for each other.
+ * The lane of a thread is removed as soon as its last run is released.
+ */
+final class ThreadRunLanes implements LG4JLoggable {
+
+    private static final class Run {
+        private final Sinks.Empty<Void> released = Sinks.empty();
+        private final Sinks.One<Boolean> cancelled = Sinks.one();
+        private final AtomicBoolean releasing = new AtomicBoolean();
+        private volatile Run previous;
+        private volatile boolean done;
+
+        Run(Run previous) {
+            this.previous = previous;
+        }
+
+        Mono<Void> whenReleased() {
+            return released.asMono();
+        }
+
+        // a run is released once its execution ended and its predecessor has been released
+        void release() {
+            if (!releasing.compareAndSet(false, true)) {
+                return;
+            }
+            final var predecessor = previous;
+            if (predecessor == null) {
+                done();
+                return;
+            }
+            predecessor.whenReleased().subscribe(null, error -> done(), this::done);
+        }
+
+        private void done() {
+            previous = null;
+            done = true;
+            released.tryEmitEmpty();
+        }
+
+        // cancels the run and the ones it is waiting for
+        void cancel() {
+            cancelled.tryEmitValue(true);
+            final var predecessor = previous;
+            if (predecessor != null) {
+                predecessor.cancel();
+            }
+        }
+    }
+
+    private final ConcurrentRunPolicy policy;
+    private final ConcurrentHashMap<String, Run> lanes = new ConcurrentHashMap<>();
+
+    ThreadRunLanes(ConcurrentRunPolicy policy) {
+        this.policy = requireNonNull(policy, "policy cannot be null");
+    }
+
+    /**
+     * @return number of threads with runs in progress
+     */
+    int size() {
+        return lanes.size();
+    }
+
+    /**
+     * Submits a run on a thread. The run is admitted on subscription.
+     *
+     * @param threadId the thread
+     * @param execution builds the run events, the given release action must be invoked once the execution has really ended
+     * @param rejection the events sent when the run is rejected
+     * @param supersession the events ending a run cancelled by a newer one, given whether its execution had started
+     * @return the run events
+     */
+    Flux<BaseEvent> submit(String threadId,
+                           Function<Runnable, Flux<BaseEvent>> execution,
+                           Supplier<Flux<BaseEvent>> rejection,
+                           Function<Boolean, Flux<BaseEvent>> supersession) {
+        return Flux.defer(() -> {
+            requireNonNull(threadId, "threadId cannot be null");
+            final var rejected = new AtomicBoolean();
+            final var run = new Run[1];
+            lanes.compute(threadId, (key, tail) -> {
+                final var previous = (tail != null && !tail.done) ? tail : null;
+                if (previous != null && policy == ConcurrentRunPolicy.REJECT) {
+                    rejected.set(true);
+                    return tail;
+                }
+                run[0] = new Run(previous);
+                return run[0];
+            });
+            if (rejected.get()) {
+                log.debug("run rejected, thread '{}' is busy", threadId);
+                return rejection.get();
+            }
+
+            final var current = run[0];
+            final var previous = current.previous;
+            final var started = new AtomicBoolean();
+            final Runnable release = () -> {
+                current.release();
+                current.whenReleased().subscribe(null, null, () -> lanes.remove(threadId, current));
+            };
+
+            Flux<BaseEvent> events = Flux.defer(() -> {
+                started.set(true);
+                return execution.apply(release);
+            });
+            if (previous != null) {
+                if (policy == ConcurrentRunPolicy.CANCEL_PREVIOUS) {
+                    log.debug("previous runs of thread '{}' cancelled", threadId);
+                    previous.cancel();
+                }
+                else {
+                    log.debug("run queued on thread '{}'", threadId);
+                }
+                events = previous.whenReleased().thenMany(events);
+            }
+            // the client of a superseded run is told why its stream ends
+            final var superseded = new AtomicBoolean();
+            return events
+                    .takeUntilOther(current.cancelled.asMono().doOnNext(value -> superseded.set(true)))
+                    .concatWith(Flux.defer(() -> superseded.get() ? supersession.apply(started.get()) : Flux.empty()))
+                    .doFinally(signal -> {
+                        // the execution never started, so it cannot release the run itself
+                        if (!started.get()) {
+                            release.run();
+                        }
+                    });
+        });
+    }
+}
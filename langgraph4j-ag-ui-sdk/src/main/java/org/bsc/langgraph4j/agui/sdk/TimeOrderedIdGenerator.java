@@ -0,0 +1,44 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free time-ordered id generator.
+ * The high 64 bits hold the epoch millis shifted by 16 bits plus a sequence, when more than 65536 ids are requested
+ * in the same millisecond the sequence borrows from the next one, so ids stay strictly increasing.
+ * The low 64 bits hold the node component. The id is rendered as 32 lowercase hex chars, that preserves the ordering.
+ */
+final class TimeOrderedIdGenerator implements IdGenerator {
+
+    static final TimeOrderedIdGenerator DEFAULT = new TimeOrderedIdGenerator( new SecureRandom().nextLong() );
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+    private final long nodeId;
+
+    TimeOrderedIdGenerator( long nodeId ) {
+        this.nodeId = nodeId;
+    }
+
+    private long nextTimeAndSequence() {
+        final long candidate = System.currentTimeMillis() << 16;
+        return lastTimeAndSequence.accumulateAndGet( candidate, (last, now) -> Math.max( last + 1, now ) );
+    }
+
+    @Override
+    public String newId() {
+        final var chars = new char[32];
+        writeHex( nextTimeAndSequence(), chars, 0 );
+        writeHex( nodeId, chars, 16 );
+        return new String(chars);
+    }
+
+    private static void writeHex( long value, char[] chars, int offset ) {
+        for( int i = offset + 15; i >= offset; --i ) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
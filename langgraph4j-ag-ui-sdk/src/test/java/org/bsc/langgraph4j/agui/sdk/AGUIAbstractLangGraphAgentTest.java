@@ -0,0 +1,147 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.event.RunFinishedEvent;
+import com.agui.core.event.RunStartedEvent;
+import com.agui.core.event.TextMessageContentEvent;
+import com.agui.core.event.TextMessageEndEvent;
+import com.agui.core.event.TextMessageStartEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.bsc.langgraph4j.agui.sdk.TestRuns.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AGUIAbstractLangGraphAgentTest {
+
+    private final ExecutorService requesters = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        requesters.shutdownNow();
+    }
+
+    /**
+     * The servlet container requests one event at a time from its own threads, while the run loop blocks its worker
+     * as soon as the backpressure buffer is full
+     */
+    @Test
+    public void completesWithSingleRequestsFromAnotherThread() throws Exception {
+        final var agent = agent(AGUIAgentConfig.builder().build(), 1_000);
+        final var events = new CopyOnWriteArrayList<BaseEvent>();
+        final var error = new AtomicReference<Throwable>();
+        final var done = new CountDownLatch(1);
+
+        agent.run(input("thread-1", "run-1", "hello")).subscribe(new BaseSubscriber<BaseEvent>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                requesters.execute(() -> request(1));
+            }
+
+            @Override
+            protected void hookOnNext(BaseEvent event) {
+                events.add(event);
+                requesters.execute(() -> request(1));
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                error.set(throwable);
+            }
+
+            @Override
+            protected void hookFinally(SignalType type) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(30, TimeUnit.SECONDS), "run stalled waiting for demand");
+        assertNull(error.get());
+
+        final var types = types(events);
+        assertEquals("RUN_STARTED", types.get(0));
+        assertEquals("RUN_FINISHED", types.get(types.size() - 1));
+        // more than the default buffer, the run loop has been blocked waiting for demand
+        assertTrue(types.stream().filter("TEXT_MESSAGE_CONTENT"::equals).count() > 256);
+    }
+
+    /**
+     * Checks the run is framed by its own RUN_STARTED and RUN_FINISHED, and its text messages are well-formed:
+     * no message starts before the previous one has ended, and all their events carry the id of the open one
+     *
+     * @return the text of each message, by id
+     */
+    private static Map<String, String> assertWellFormed(String runId, List<BaseEvent> events, Set<String> messageIds) {
+        final var texts = new HashMap<String, String>();
+        assertEquals(runId, assertInstanceOf(RunStartedEvent.class, events.get(0)).getRunId());
+        assertEquals(runId, assertInstanceOf(RunFinishedEvent.class, events.get(events.size() - 1)).getRunId());
+
+        String open = null;
+        for (var event : events) {
+            if (event instanceof TextMessageStartEvent start) {
+                assertNull(open, () -> runId + ": message started before " + start.getMessageId() + " ended");
+                open = start.getMessageId();
+                assertTrue(messageIds.add(open), () -> runId + ": duplicate message id " + start.getMessageId());
+                texts.put(open, "");
+            } else if (event instanceof TextMessageContentEvent content) {
+                assertEquals(open, content.getMessageId(), runId);
+                texts.merge(open, content.getDelta(), String::concat);
+            } else if (event instanceof TextMessageEndEvent end) {
+                assertEquals(open, end.getMessageId(), runId);
+                open = null;
+            }
+        }
+        assertNull(open, () -> runId + ": message never ended");
+        return texts;
+    }
+
+    /**
+     * Hundreds of runs in parallel on the same compiled graph: no streaming state leaks from one run into another
+     */
+    @Test
+    public void keepsTheStreamingStateOfConcurrentRunsApart() {
+        final int runs = 200;
+        final int tokens = 50;
+        final var agent = agent(AGUIAgentConfig.builder()
+                        .graphSharing(AGUIAgentConfig.GraphSharing.SHARED)
+                        .build(),
+                tokens);
+        final var answer = IntStream.range(0, tokens)
+                .mapToObj(i -> (i == 0) ? "Token" : " token" + i)
+                .collect(Collectors.joining());
+
+        final var results = Flux.range(0, runs)
+                .flatMap(i -> Flux.<BaseEvent>from(agent.run(input("thread-" + i, "run-" + i, "hello " + i)))
+                        .collectList()
+                        .map(events -> Map.entry("run-" + i, events)), 64)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block(Duration.ofSeconds(60));
+
+        assertNotNull(results);
+        assertEquals(runs, results.size());
+        final Set<String> messageIds = ConcurrentHashMap.newKeySet();
+        results.forEach((runId, events) -> {
+            final var texts = assertWellFormed(runId, events, messageIds);
+            assertTrue(texts.containsValue(answer), () -> runId + ": " + texts.values());
+        });
+    }
+}
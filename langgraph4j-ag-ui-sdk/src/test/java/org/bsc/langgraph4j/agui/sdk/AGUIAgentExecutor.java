@@ -14,27 +14,54 @@ import org.bsc.langgraph4j.state.AgentState;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
 
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 import static org.bsc.langgraph4j.utils.CollectionsUtils.lastOf;
 
 public class AGUIAgentExecutor extends  AGUIAbstractLangGraphAgent {
 
     private final MemorySaver saver = new MemorySaver();
+    private final ChatModelRegistry models;
+    private final ChatModel chatModel;
+
+    public AGUIAgentExecutor() {
+        this.models = new ChatModelRegistry();
+        this.chatModel = null;
+    }
+
+    public AGUIAgentExecutor(AGUIAgentConfig config) {
+        this(config, new ChatModelRegistry(), null);
+    }
+
+    /**
+     * @param config the agent configuration
+     * @param models the registry providing the model clients shared by all the graphs
+     * @param chatModel the model to use, if {@code null} it is selected from the environment
+     */
+    public AGUIAgentExecutor(AGUIAgentConfig config, ChatModelRegistry models, ChatModel chatModel) {
+        super(config);
+        this.models = requireNonNull(models, "models cannot be null");
+        this.chatModel = chatModel;
+    }
+
+    public ChatModelRegistry models() {
+        return models;
+    }
 
     @Override
     protected GraphData buildStateGraph() throws GraphStateException {
 
-        var model = ofNullable(System.getenv("OPENAI_API_KEY"))
-                .map( key -> AIModel.OPENAI_GPT_4O_MINI.model.get())
-                .orElseGet( () ->
-                        ofNullable( System.getenv("GITHUB_MODELS_TOKEN") )
-                                .map( key -> AIModel.GITHUB_MODELS_GPT_4O_MINI.model.get() )
-                                .orElseGet( AIModel.OLLAMA_QWEN2_5_7B.model ));
+        var model = ofNullable(chatModel)
+                .or( () -> ofNullable(System.getenv("OPENAI_API_KEY"))
+                        .map( key -> models.model(AIModel.OPENAI_GPT_4O_MINI)) )
+                .or( () -> ofNullable( System.getenv("GITHUB_MODELS_TOKEN") )
+                        .map( key -> models.model(AIModel.GITHUB_MODELS_GPT_4O_MINI) ) )
+                .orElseGet( () -> models.model(AIModel.OLLAMA_QWEN2_5_7B) );
 
         var agent =  AgentExecutorEx.builder()
                 .chatModel(model)
@@ -83,7 +110,7 @@ public class AGUIAgentExecutor extends  AGUIAbstractLangGraphAgent {
                 .map( toolCalls ->
                         toolCalls.stream().map( toolCall -> {
                             var id = toolCall.id().isBlank() ?
-                                    UUID.randomUUID().toString() :
+                                    newMessageId() :
                                     toolCall.id();
                             return new Approval( id, toolCall.name(), toolCall.arguments() );
                         }).toList()
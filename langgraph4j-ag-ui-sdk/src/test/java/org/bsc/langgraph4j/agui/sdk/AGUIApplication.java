@@ -4,9 +4,14 @@ import com.agui.json.ObjectMapperFactory;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.StreamReadFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.HttpMessageConverter;
+
+import java.time.Duration;
 
 @SpringBootApplication
 public class AGUIApplication {
@@ -18,13 +23,41 @@ public class AGUIApplication {
         .build();
         var result = new ObjectMapper(factory);
         ObjectMapperFactory.addMixins(result);
-        return result;
+        return AGUIEventSerializers.register(result);
+    }
+
+    @Bean
+    ChatModelRegistry chatModelRegistry() {
+        return new ChatModelRegistry();
     }
 
     @Bean
-    AGUIAbstractLangGraphAgent createAgentExecutor(ObjectMapper objectMapper) {
+    AGUIAbstractLangGraphAgent createAgentExecutor(ObjectMapper objectMapper, ChatModelRegistry models, ObjectProvider<ChatModel> chatModel) throws Exception {
 
-        return new AGUIAgentExecutor();
+        var config = AGUIAgentConfig.builder()
+                .graphSharing(AGUIAgentConfig.GraphSharing.SHARED)
+                .runScheduler(RunSchedulers.virtualThreadPerRun())
+                .coalescingPolicy(CoalescingPolicy.of(Duration.ofMillis(20), 512))
+                .metricsTags("agent", "agentExecutor")
+                .stepEvents(true)
+                // the graph input is built from the last message only
+                .historyTail(1)
+                .replay(ReplayPolicy.of(256, 256_000))
+                .admission(AdmissionPolicy.of(256, 1_024, Duration.ofSeconds(10)))
+                .build();
+
+        // a ChatModel bean, if any, overrides the one selected from the environment
+        var agent = new AGUIAgentExecutor(config, models, chatModel.getIfAvailable());
+        agent.warmUp();
+        return agent;
+    }
+
+    /**
+     * Serializes the SSE events, recording the serialization time
+     */
+    @Bean
+    HttpMessageConverter<Object> aguiEventMessageConverter(ObjectMapper objectMapper, AGUIAbstractLangGraphAgent agent) {
+        return new AGUIEventMessageConverter(objectMapper, agent.metrics());
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,90 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.message.Role;
+import com.agui.server.EventFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.bsc.langgraph4j.agui.sdk.TestRuns.objectMapper;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AGUIEventSerializersTest {
+
+    private final ObjectMapper mixins = objectMapper();
+    private final ObjectMapper compact = AGUIEventSerializers.register(objectMapper());
+
+    private static List<BaseEvent> events() {
+        return List.of(
+                EventFactory.runStartedEvent("thread-1", "run-1"),
+                EventFactory.stepStartedEvent("agent"),
+                EventFactory.textMessageStartEvent("msg-1", Role.assistant.name()),
+                EventFactory.textMessageContentEvent("msg-1", "quoted \"text\"\n\ttabbed è 😀"),
+                EventFactory.textMessageEndEvent("msg-1"),
+                EventFactory.toolCallStartEvent("msg-2", "sendEmail", "call-1"),
+                EventFactory.toolCallArgsEvent("{\"to\":\"someone@example.com\"}", "call-1"),
+                EventFactory.toolCallEndEvent("call-1"),
+                EventFactory.stepFinishedEvent("agent"),
+                EventFactory.runFinishedEvent("thread-1", "run-1"));
+    }
+
+    // the mixins may write the null properties the compact writers skip
+    private static JsonNode withoutNulls(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            object.properties().removeIf(property -> property.getValue().isNull());
+        }
+        return node;
+    }
+
+    private JsonNode expected(Object value) throws Exception {
+        return withoutNulls(mixins.readTree(mixins.writeValueAsString(value)));
+    }
+
+    @Test
+    public void writesTheSameJsonAsTheMixins() throws Exception {
+        for (var event : events()) {
+            assertEquals(expected(event), compact.readTree(compact.writeValueAsString(event)), event.getType().name());
+        }
+    }
+
+    @Test
+    public void writesTheRawEvent() throws Exception {
+        final var event = EventFactory.runFinishedEvent("thread-1", "run-1");
+        event.setRawEvent(Map.of("code", "SUPERSEDED", "attempts", List.of(1, 2)));
+
+        final var json = compact.readTree(compact.writeValueAsString(event));
+
+        assertEquals(expected(event), json);
+        assertEquals("SUPERSEDED", json.path("rawEvent").path("code").asText());
+    }
+
+    @Test
+    public void writesTheTypeOnceAsAPolymorphicValue() throws Exception {
+        final var type = new TypeReference<List<BaseEvent>>() {};
+        final var events = events();
+
+        final var json = compact.readTree(compact.writerFor(type).writeValueAsString(events));
+
+        assertEquals(events.size(), json.size());
+        for (int i = 0; i < events.size(); ++i) {
+            final var expected = withoutNulls(mixins.readTree(mixins.writerFor(type).writeValueAsString(List.of(events.get(i)))).get(0));
+            assertEquals(expected, json.get(i));
+        }
+        // the compact output reads back as the same events
+        final List<BaseEvent> decoded = compact.readValue(compact.writerFor(type).writeValueAsString(events), type);
+        assertEquals(TestRuns.types(events), TestRuns.types(decoded));
+    }
+
+    @Test
+    public void keepsTheMixinsForTheOtherEvents() throws Exception {
+        final var event = EventFactory.stateSnapshotEvent(Map.of("counter", 1, "items", List.of("a", "b")));
+
+        assertEquals(mixins.writeValueAsString(event), compact.writeValueAsString(event));
+    }
+}
@@ -0,0 +1,131 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.message.BaseMessage;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.bsc.langgraph4j.agui.sdk.TestRuns.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AGUIRequestReaderTest {
+
+    private static byte[] body(String threadId, int messages) {
+        var json = new StringBuilder(256)
+                .append("{\"threadId\":\"").append(threadId)
+                .append("\",\"runId\":\"run-1\",\"tools\":[],\"context\":[],")
+                .append("\"forwardedProps\":{\"tenant\":\"acme\"},\"state\":null,\"messages\":[");
+        for (int i = 0; i < messages; ++i) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"msg-").append(i)
+                    .append("\",\"role\":\"user\",\"content\":\"message {").append(i).append("}\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static AGUIAbstractLangGraphAgent agentKnowing(AGUIAgentConfig config, String threadId) {
+        final var agent = agent(config, 3);
+        agent.run(input(threadId, "run-0", "hello")).blockLast(Duration.ofSeconds(10));
+        assertTrue(agent.threads().contains(threadId));
+        return agent;
+    }
+
+    private static List<String> ids(AGUIParameters parameters) {
+        return parameters.getMessages().stream().map(BaseMessage::getId).toList();
+    }
+
+    @Test
+    public void readsTheRunInput() throws IOException {
+        final var reader = new AGUIRequestReader(OBJECT_MAPPER, agent(AGUIAgentConfig.builder().build(), 3));
+
+        final var parameters = reader.read(body("thread-1", 2));
+
+        assertEquals("thread-1", parameters.getThreadId());
+        assertEquals("run-1", parameters.getRunId());
+        assertEquals(List.of(), parameters.getTools());
+        assertEquals(List.of(), parameters.getContext());
+        assertEquals(Map.of("tenant", "acme"), parameters.getForwardedProps());
+        assertNull(parameters.getState());
+        assertEquals(List.of("msg-0", "msg-1"), ids(parameters));
+        assertEquals("message {1}", parameters.getMessages().get(1).getContent());
+    }
+
+    @Test
+    public void keepsTheHistoryByDefault() throws IOException {
+        final var agent = agentKnowing(AGUIAgentConfig.builder().build(), "thread-1");
+        final var reader = new AGUIRequestReader(OBJECT_MAPPER, agent);
+
+        assertEquals(5, reader.read(body("thread-1", 5)).getMessages().size());
+    }
+
+    @Test
+    public void skipsTheHistoryOfKnownThreadsWhenEnabled() throws IOException {
+        final var agent = agentKnowing(AGUIAgentConfig.builder().historyTail(2).build(), "thread-1");
+        final var reader = new AGUIRequestReader(OBJECT_MAPPER, agent);
+
+        assertEquals(List.of("msg-3", "msg-4"), ids(reader.read(body("thread-1", 5))));
+        assertEquals(List.of("msg-0"), ids(reader.read(body("thread-1", 1))));
+        // the history of a new thread is not held by any checkpoint
+        assertEquals(5, reader.read(body("thread-2", 5)).getMessages().size());
+    }
+
+    @Test
+    public void rejectsTheRunWhenTheThreadIsEvictedAfterTheRequestIsRead() throws IOException {
+        final var agent = agentKnowing(AGUIAgentConfig.builder().historyTail(2).maxThreads(1).build(), "thread-1");
+        final var reader = new AGUIRequestReader(OBJECT_MAPPER, agent);
+
+        final var parameters = reader.read(body("thread-1", 5));
+        // another thread takes the only slot before the run starts
+        agent.run(input("thread-2", "run-2", "hello")).blockLast(Duration.ofSeconds(10));
+        // evicted once the run loop of its last run has exited
+        final var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (agent.threads().contains("thread-1")) {
+            assertTrue(System.nanoTime() < deadline, "thread-1 not evicted");
+            Thread.onSpinWait();
+        }
+
+        final var events = agent.run(parameters.toRunAgentParameters()).collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("RUN_STARTED", "RUN_ERROR"), types(events));
+        assertEquals("HISTORY_UNAVAILABLE",
+                OBJECT_MAPPER.valueToTree(events.get(1)).path("rawEvent").path("code").asText());
+        // the request sent again is read whole
+        assertEquals(5, reader.read(body("thread-1", 5)).getMessages().size());
+    }
+
+    @Test
+    public void readsAnEmbeddedRunInput() throws IOException {
+        final var reader = new AGUIRequestReader(OBJECT_MAPPER, agent(AGUIAgentConfig.builder().build(), 3));
+        final var frame = ("{\"op\":\"run\",\"input\":" + new String(body("thread-1", 3), StandardCharsets.UTF_8) + "}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        try (var parser = OBJECT_MAPPER.getFactory().createParser(frame)) {
+            assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+            assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+            parser.nextToken();
+            assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+            assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+
+            final var parameters = reader.read(frame, parser);
+
+            assertEquals(List.of("msg-0", "msg-1", "msg-2"), ids(parameters));
+            assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+            assertEquals(JsonToken.END_OBJECT, parser.nextToken());
+        }
+    }
+
+    @Test
+    public void rejectsAnInputThatIsNotAnObject() {
+        final var reader = new AGUIRequestReader(OBJECT_MAPPER, agent(AGUIAgentConfig.builder().build(), 3));
+
+        assertThrows(IOException.class, () -> reader.read("[]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> reader.read("{\"messages\":{}}".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,120 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.bsc.langgraph4j.agui.sdk.TestRuns.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AGUISSEControllerTest {
+
+    private static final String BODY = """
+            {"threadId":"thread-1","runId":"run-1","tools":[],"context":[],"forwardedProps":{},
+             "messages":[{"id":"msg-0","role":"user","content":"hello"}]}
+            """;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = mockMvc(AGUIAgentConfig.builder().build());
+    }
+
+    private static MockMvc mockMvc(AGUIAgentConfig config) {
+        final var objectMapper = AGUIEventSerializers.register(objectMapper());
+        final var agent = agent(config, 5);
+        return MockMvcBuilders.standaloneSetup(new AGUISSEController(agent, objectMapper))
+                .setMessageConverters(
+                        new ByteArrayHttpMessageConverter(),
+                        new AGUIEventMessageConverter(objectMapper, agent.metrics()))
+                .build();
+    }
+
+    private static MockHttpServletRequestBuilder run(String path) {
+        return post(path, "agent")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(BODY);
+    }
+
+    private MvcResult completed(MockHttpServletRequestBuilder builder) throws Exception {
+        final var result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+        return result;
+    }
+
+    private static void assertSse(MvcResult result) throws Exception {
+        final var response = result.getResponse();
+        assertEquals(200, response.getStatus());
+        assertTrue(MediaType.TEXT_EVENT_STREAM.isCompatibleWith(MediaType.parseMediaType(response.getContentType())),
+                response.getContentType());
+        final var content = response.getContentAsString();
+        assertTrue(content.contains("RUN_STARTED"), content);
+        assertTrue(content.contains("RUN_FINISHED"), content);
+    }
+
+    @Test
+    public void streamsSseToClientsAcceptingAnything() throws Exception {
+        assertSse(completed(run("/sse/{agentId}").accept(MediaType.ALL)));
+    }
+
+    @Test
+    public void streamsSseWithoutAcceptHeader() throws Exception {
+        assertSse(completed(run("/sse/{agentId}")));
+    }
+
+    @Test
+    public void streamsSseToEventStreamClients() throws Exception {
+        assertSse(completed(run("/sse/{agentId}").accept(MediaType.TEXT_EVENT_STREAM)));
+    }
+
+    @Test
+    public void streamsBinaryFramesOnTheirOwnPath() throws Exception {
+        final var result = completed(run("/binary/{agentId}").accept(AGUIBinaryFraming.SMILE));
+
+        final var response = result.getResponse();
+        assertEquals(200, response.getStatus());
+        assertEquals(AGUIBinaryFraming.SMILE, MediaType.parseMediaType(response.getContentType()));
+
+        final List<BaseEvent> events = AGUIBinaryFraming.smile(objectMapper()).decode(response.getContentAsByteArray());
+        final var types = types(events);
+        assertEquals("RUN_STARTED", types.get(0));
+        assertEquals("RUN_FINISHED", types.get(types.size() - 1));
+    }
+
+    @Test
+    public void streamsBinaryFramesOfCoalescedDeltas() throws Exception {
+        // the coalesced deltas are flushed by a timer, the frames must not be written from it
+        mockMvc = mockMvc(AGUIAgentConfig.builder()
+                .coalescingPolicy(CoalescingPolicy.of(Duration.ofMillis(5), 512))
+                .build());
+
+        final var result = completed(run("/binary/{agentId}").accept(AGUIBinaryFraming.CBOR));
+
+        final List<BaseEvent> events = AGUIBinaryFraming.cbor(objectMapper()).decode(result.getResponse().getContentAsByteArray());
+        final var types = types(events);
+        assertEquals("RUN_STARTED", types.get(0));
+        assertTrue(types.contains("TEXT_MESSAGE_CONTENT"), types::toString);
+        assertEquals("RUN_FINISHED", types.get(types.size() - 1));
+    }
+
+    @Test
+    public void rejectsBinaryMediaTypesOnSse() throws Exception {
+        mockMvc.perform(run("/sse/{agentId}").accept(AGUIBinaryFraming.CBOR))
+                .andExpect(status().isNotAcceptable());
+    }
+}
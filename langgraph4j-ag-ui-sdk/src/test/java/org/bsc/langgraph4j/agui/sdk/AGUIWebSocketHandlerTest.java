@@ -0,0 +1,182 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.bsc.langgraph4j.agui.sdk.TestRuns.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AGUIWebSocketHandlerTest {
+
+    private final List<JsonNode> frames = new CopyOnWriteArrayList<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    // when set, the next frame written to the socket blocks until it is counted down, as a client not reading
+    private final AtomicReference<CountDownLatch> stall = new AtomicReference<>();
+    private AGUIWebSocketHandler handler;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setup() throws Exception {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(attributes);
+        doAnswer(invocation -> {
+            final var latch = stall.getAndSet(null);
+            if (latch != null) {
+                latch.await(30, TimeUnit.SECONDS);
+            }
+            final TextMessage message = invocation.getArgument(0);
+            frames.add(OBJECT_MAPPER.readTree(message.getPayload()));
+            return null;
+        }).when(session).sendMessage(any());
+
+        handler = new AGUIWebSocketHandler(agent(AGUIAgentConfig.builder().build(), 1_000), objectMapper());
+        handler.afterConnectionEstablished(session);
+    }
+
+    private void send(String frame) throws Exception {
+        handler.handleMessage(session, new TextMessage(frame));
+    }
+
+    private static String runFrame(String runId, int credit) {
+        return """
+                {"op":"run","credit":%d,"input":{"threadId":"thread-%s","runId":"%s","tools":[],"context":[],
+                 "forwardedProps":{},"messages":[{"id":"msg-0","role":"user","content":"hello"}]}}
+                """.formatted(credit, runId, runId);
+    }
+
+    private List<JsonNode> frames(String runId, Predicate<JsonNode> filter) {
+        return frames.stream()
+                .filter(frame -> runId.equals(frame.path("runId").asText()))
+                .filter(filter)
+                .toList();
+    }
+
+    private static boolean isEvent(JsonNode frame) {
+        return frame.has("event");
+    }
+
+    private static boolean isOp(JsonNode frame, String op) {
+        return op.equals(frame.path("op").asText());
+    }
+
+    private void await(String description, BooleanSupplier condition) throws InterruptedException {
+        final var deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("timeout waiting for " + description + ", frames: " + frames);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void sendsTheEventsGrantedByTheCredit() throws Exception {
+        send(runFrame("run-1", 2));
+
+        await("first events", () -> frames("run-1", AGUIWebSocketHandlerTest::isEvent).size() == 2);
+        // the run loop is blocked on the full buffer, nothing else is sent until more credit is granted
+        Thread.sleep(200);
+        assertEquals(2, frames("run-1", AGUIWebSocketHandlerTest::isEvent).size());
+        assertEquals("RUN_STARTED", frames.get(0).path("event").path("type").asText());
+
+        send("""
+                {"op":"request","runId":"run-1","n":100000}
+                """);
+
+        await("run completion", () -> !frames("run-1", frame -> isOp(frame, "complete")).isEmpty());
+        final var events = frames("run-1", AGUIWebSocketHandlerTest::isEvent);
+        assertEquals("RUN_FINISHED", events.get(events.size() - 1).path("event").path("type").asText());
+        assertTrue(events.size() > 256);
+    }
+
+    @Test
+    public void stopsTheRunOnCancel() throws Exception {
+        send(runFrame("run-1", 1));
+        await("first event", () -> frames("run-1", AGUIWebSocketHandlerTest::isEvent).size() == 1);
+
+        send("""
+                {"op":"cancel","runId":"run-1"}
+                """);
+        send("""
+                {"op":"request","runId":"run-1","n":100000}
+                """);
+
+        Thread.sleep(200);
+        assertEquals(1, frames("run-1", AGUIWebSocketHandlerTest::isEvent).size());
+        assertTrue(frames("run-1", frame -> isOp(frame, "complete")).isEmpty());
+    }
+
+    @Test
+    public void multiplexesRunsOnTheSameSocket() throws Exception {
+        send(runFrame("run-1", 1));
+        send(runFrame("run-2", 100_000));
+
+        // the run without credit doesn't stall the other one
+        await("run-2 completion", () -> !frames("run-2", frame -> isOp(frame, "complete")).isEmpty());
+        assertEquals(1, frames("run-1", AGUIWebSocketHandlerTest::isEvent).size());
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+    }
+
+    @Test
+    public void cancelsOnlyTheRunOverrunningTheSendBuffer() throws Exception {
+        final var released = new CountDownLatch(1);
+        stall.set(released);
+        // the answer to an invalid frame holds the socket, the frames sent meanwhile wait in the buffer
+        final var stalled = new Thread(() -> {
+            try {
+                send("[]");
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        stalled.start();
+        await("stalled socket", () -> stall.get() == null);
+
+        // its credit lets the run send far more than its share of the buffer
+        send(runFrame("run-1", 100_000));
+        Thread.sleep(500);
+        released.countDown();
+        stalled.join();
+
+        await("run-1 cancellation", () -> !frames("run-1", frame -> isOp(frame, "error")).isEmpty());
+        assertTrue(frames("run-1", frame -> isOp(frame, "complete")).isEmpty());
+        verify(session, never()).close(any());
+
+        // the socket is still usable by the other runs
+        send(runFrame("run-2", 100_000));
+        await("run-2 completion", () -> !frames("run-2", frame -> isOp(frame, "complete")).isEmpty());
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    public void answersInvalidFramesWithAnError() throws Exception {
+        send("[]");
+        send("{\"op\":\"unknown\",\"runId\":\"run-1\"}");
+        send("{\"op\":\"run\",\"input\":{\"threadId\":\"thread-1\",\"messages\":[]}}");
+        send(runFrame("run-1", 0));
+
+        await("errors", () -> frames.size() == 4);
+        assertTrue(frames.stream().allMatch(frame -> isOp(frame, "error")), frames::toString);
+        assertEquals("run-1", frames.get(1).path("runId").asText());
+    }
+}
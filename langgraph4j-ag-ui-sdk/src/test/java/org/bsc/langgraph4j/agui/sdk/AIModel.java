@@ -7,16 +7,24 @@ import org.springframework.ai.ollama.api.OllamaChatOptions;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.function.Supplier;
+import java.util.function.BiFunction;
 
+/**
+ * Supported models. Each one is built on the given HTTP client builders, so that all the models created by a
+ * {@link ChatModelRegistry} share the same connection pool.
+ */
 public enum AIModel {
 
-    OPENAI_GPT_4O_MINI( () ->
+    OPENAI_GPT_4O_MINI( (restClient, webClient) ->
             OpenAiChatModel.builder()
                     .openAiApi(OpenAiApi.builder()
                             .baseUrl("https://api.openai.com")
                             .apiKey( System.getenv("OPENAI_API_KEY"))
+                            .restClientBuilder(restClient)
+                            .webClientBuilder(webClient)
                             .build())
                     .defaultOptions(OpenAiChatOptions.builder()
                             .model("gpt-4o-mini")
@@ -24,11 +32,13 @@ public enum AIModel {
                             .temperature(0.1)
                             .build())
                     .build()),
-    GITHUB_MODELS_GPT_4O_MINI( () ->
+    GITHUB_MODELS_GPT_4O_MINI( (restClient, webClient) ->
             OpenAiChatModel.builder()
                     .openAiApi(OpenAiApi.builder()
                             .baseUrl("https://models.github.ai/inference") // GITHUB MODELS
                             .apiKey(System.getenv("GITHUB_MODELS_TOKEN"))
+                            .restClientBuilder(restClient)
+                            .webClientBuilder(webClient)
                             .build())
                     .defaultOptions(OpenAiChatOptions.builder()
                             .model("gpt-4o-mini")
@@ -36,17 +46,25 @@ public enum AIModel {
                             .temperature(0.1)
                             .build())
                     .build()),
-    OLLAMA_QWEN2_5_7B( () ->
+    OLLAMA_QWEN2_5_7B( (restClient, webClient) ->
             OllamaChatModel.builder()
-                    .ollamaApi( OllamaApi.builder().baseUrl("http://localhost:11434").build() )
+                    .ollamaApi( OllamaApi.builder()
+                            .baseUrl("http://localhost:11434")
+                            .restClientBuilder(restClient)
+                            .webClientBuilder(webClient)
+                            .build() )
                     .defaultOptions(OllamaChatOptions.builder()
                             .model("qwen2.5:7b")
                             .temperature(0.1)
                             .build())
                     .build()),
-    OLLAMA_QWEN3_14B( () ->
+    OLLAMA_QWEN3_14B( (restClient, webClient) ->
             OllamaChatModel.builder()
-                    .ollamaApi( OllamaApi.builder().baseUrl("http://localhost:11434").build() )
+                    .ollamaApi( OllamaApi.builder()
+                            .baseUrl("http://localhost:11434")
+                            .restClientBuilder(restClient)
+                            .webClientBuilder(webClient)
+                            .build() )
                     .defaultOptions(OllamaChatOptions.builder()
                             .model("qwen3:14b")
                             .temperature(0.1)
@@ -54,10 +72,20 @@ public enum AIModel {
                     .build());
     ;
 
-    public final Supplier<ChatModel> model;
+    private final BiFunction<RestClient.Builder, WebClient.Builder, ChatModel> factory;
 
-    AIModel(  Supplier<ChatModel> model ) {
-        this.model = model;
+    AIModel( BiFunction<RestClient.Builder, WebClient.Builder, ChatModel> factory ) {
+        this.factory = factory;
     }
-}
 
+    /**
+     * Creates a new model client. Prefer {@link ChatModelRegistry#model(AIModel)} that creates it once.
+     *
+     * @param restClient builder of the blocking client, used as it is
+     * @param webClient builder of the streaming client, used as it is
+     * @return a new model client
+     */
+    public ChatModel newModel( RestClient.Builder restClient, WebClient.Builder webClient ) {
+        return factory.apply(restClient, webClient);
+    }
+}
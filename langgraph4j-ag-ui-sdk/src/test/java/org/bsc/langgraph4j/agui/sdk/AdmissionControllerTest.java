@@ -0,0 +1,206 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest {
+
+    private final List<String> admitted = new CopyOnWriteArrayList<>();
+    private final Map<String, Runnable> releases = new ConcurrentHashMap<>();
+
+    /**
+     * Submits a run that completes at once, but keeps its slot until {@link #release(String)}, as a run loop still exiting
+     */
+    private Flux<String> submit(AdmissionController controller, String tenant, RunPriority priority, String name) {
+        return controller.admit(tenant, priority,
+                release -> {
+                    admitted.add(name);
+                    releases.put(name, release);
+                    return Flux.just(name);
+                },
+                rejection -> Flux.just(rejection.cause().name()));
+    }
+
+    private void release(String name) {
+        releases.remove(name).run();
+    }
+
+    // releases the runs one at a time, in admission order, until all the submitted ones are admitted
+    private void drain(int expected) {
+        for (int i = 0; i < expected; ++i) {
+            release(admitted.get(i));
+        }
+    }
+
+    private long count(List<String> names, String prefix) {
+        return names.stream().filter(name -> name.startsWith(prefix)).count();
+    }
+
+    @Test
+    public void admitsAtOnceWhileSlotsAreFree() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(2, 10, Duration.ofSeconds(10)), (priority, nanos) -> {});
+
+        submit(controller, "a", RunPriority.NEW, "a1").subscribe();
+        submit(controller, "a", RunPriority.NEW, "a2").subscribe();
+        submit(controller, "a", RunPriority.NEW, "a3").subscribe();
+
+        assertEquals(List.of("a1", "a2"), admitted);
+        assertEquals(2, controller.activeRuns());
+        assertEquals(1, controller.queuedRuns());
+
+        release("a1");
+        assertEquals(List.of("a1", "a2", "a3"), admitted);
+        assertEquals(0, controller.queuedRuns());
+    }
+
+    @Test
+    public void keepsTheSlotUntilTheExecutionEnds() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 10, Duration.ofSeconds(10)), (priority, nanos) -> {});
+
+        // the stream is over, or its subscriber went away, but the run loop has not exited yet
+        submit(controller, "a", RunPriority.NEW, "a1").subscribe().dispose();
+        submit(controller, "a", RunPriority.NEW, "a2").subscribe();
+
+        assertEquals(1, controller.activeRuns());
+        assertEquals(List.of("a1"), admitted);
+
+        release("a1");
+        assertEquals(List.of("a1", "a2"), admitted);
+    }
+
+    @Test
+    public void sharesSlotsEquallyAmongTenants() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 100, Duration.ofSeconds(10)), (priority, nanos) -> {});
+        submit(controller, "blocker", RunPriority.NEW, "blocker").subscribe();
+
+        // a bursting tenant queues first
+        for (int i = 0; i < 8; ++i) {
+            submit(controller, "a", RunPriority.NEW, "a" + i).subscribe();
+        }
+        for (int i = 0; i < 2; ++i) {
+            submit(controller, "b", RunPriority.NEW, "b" + i).subscribe();
+        }
+
+        drain(5);
+
+        // after the blocker, the light tenant doesn't wait for the whole burst
+        assertEquals(2, count(admitted.subList(1, 5), "b"));
+    }
+
+    @Test
+    public void sharesSlotsInProportionToTheWeights() {
+        final var policy = AdmissionPolicy.of(1, 100, Duration.ofSeconds(10))
+                .withTenantWeights(Map.of("a", 3));
+        final var controller = new AdmissionController(policy, (priority, nanos) -> {});
+        submit(controller, "blocker", RunPriority.NEW, "blocker").subscribe();
+
+        for (int i = 0; i < 20; ++i) {
+            submit(controller, "a", RunPriority.NEW, "a" + i).subscribe();
+            submit(controller, "b", RunPriority.NEW, "b" + i).subscribe();
+        }
+
+        drain(17);
+
+        final var window = admitted.subList(1, 17);
+        assertEquals(12.0, count(window, "a"), 1.0, window::toString);
+        assertEquals(4.0, count(window, "b"), 1.0, window::toString);
+    }
+
+    @Test
+    public void admitsTheHigherClassesFirst() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 10, Duration.ofSeconds(10)), (priority, nanos) -> {});
+        submit(controller, "blocker", RunPriority.NEW, "blocker").subscribe();
+
+        submit(controller, "a", RunPriority.NEW, "new").subscribe();
+        submit(controller, "a", RunPriority.FOLLOW_UP, "follow-up").subscribe();
+        submit(controller, "a", RunPriority.RESUME, "resume").subscribe();
+
+        drain(3);
+
+        assertEquals(List.of("blocker", "resume", "follow-up", "new"), admitted);
+    }
+
+    @Test
+    public void doesNotStarveTheLowerClasses() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 100, Duration.ofSeconds(10)), (priority, nanos) -> {});
+        submit(controller, "blocker", RunPriority.NEW, "blocker").subscribe();
+
+        for (int i = 0; i < 10; ++i) {
+            submit(controller, "a", RunPriority.NEW, "new" + i).subscribe();
+        }
+        // a steady stream of resumptions
+        for (int i = 0; i < 30; ++i) {
+            submit(controller, "a", RunPriority.RESUME, "resume" + i).subscribe();
+        }
+
+        drain(21);
+
+        // slots shared 4 to 1 between the classes
+        final var window = admitted.subList(1, 21);
+        assertEquals(16.0, count(window, "resume"), 1.0, window::toString);
+        assertEquals(4.0, count(window, "new"), 1.0, window::toString);
+    }
+
+    @Test
+    public void rejectsWhenTheQueueIsFull() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 1, Duration.ofSeconds(10)), (priority, nanos) -> {});
+        submit(controller, "a", RunPriority.NEW, "a1").subscribe();
+        submit(controller, "a", RunPriority.NEW, "a2").subscribe();
+
+        StepVerifier.create(submit(controller, "a", RunPriority.NEW, "a3"))
+                .expectNext("QUEUE_FULL")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, controller.rejectionCount(AdmissionController.RejectionCause.QUEUE_FULL));
+    }
+
+    @Test
+    public void evictsTheHeaviestTenantInFavourOfALighterOne() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 2, Duration.ofSeconds(10)), (priority, nanos) -> {});
+        submit(controller, "a", RunPriority.NEW, "a1").subscribe();
+        submit(controller, "a", RunPriority.NEW, "a2").subscribe();
+
+        // the newest run of the heaviest tenant makes room
+        final var evicted = StepVerifier.create(submit(controller, "a", RunPriority.NEW, "a3"))
+                .expectNext("QUEUE_FULL")
+                .expectComplete()
+                .verifyLater();
+        submit(controller, "b", RunPriority.NEW, "b1").subscribe();
+
+        evicted.verify(Duration.ofSeconds(5));
+        assertEquals(2, controller.queuedRuns());
+    }
+
+    @Test
+    public void rejectsRunsWaitingTooLong() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 10, Duration.ofMillis(50)), (priority, nanos) -> {});
+        submit(controller, "a", RunPriority.NEW, "a1").subscribe();
+
+        StepVerifier.create(submit(controller, "a", RunPriority.NEW, "a2"))
+                .expectNext("QUEUE_TIMEOUT")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, controller.queuedRuns());
+    }
+
+    @Test
+    public void forgetsQueuedRunsWhoseSubscriberWentAway() {
+        final var controller = new AdmissionController(AdmissionPolicy.of(1, 10, Duration.ofSeconds(10)), (priority, nanos) -> {});
+        submit(controller, "a", RunPriority.NEW, "a1").subscribe();
+        submit(controller, "a", RunPriority.NEW, "a2").subscribe().dispose();
+
+        assertEquals(0, controller.queuedRuns());
+        release("a1");
+        assertEquals(List.of("a1"), admitted);
+        assertEquals(0, controller.activeRuns());
+    }
+}
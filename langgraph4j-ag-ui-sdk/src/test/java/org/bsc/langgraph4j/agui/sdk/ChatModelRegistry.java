@@ -0,0 +1,114 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import io.netty.channel.ChannelOption;
+import org.bsc.langgraph4j.LG4JLoggable;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates each model client once and hands the same instance to every graph.
+ * All the clients, blocking and streaming, share a single keep-alive connection pool, so conversations
+ * reuse the provider connections instead of paying a new pool and TLS handshakes each.
+ */
+public final class ChatModelRegistry implements AutoCloseable, LG4JLoggable {
+
+    /**
+     * Utilization of the connection pool toward a provider host
+     *
+     * @param remoteAddress the provider address
+     * @param acquired connections in use
+     * @param allocated connections open, in use or idle
+     * @param idle connections open and not in use
+     * @param pendingAcquire requests waiting for a connection
+     * @param maxAllocated max connections allowed
+     */
+    public record PoolStats(String remoteAddress, int acquired, int allocated, int idle, int pendingAcquire, int maxAllocated) {}
+
+    private final ConnectionProvider connections;
+    private final RestClient.Builder restClientBuilder;
+    private final WebClient.Builder webClientBuilder;
+    private final Map<AIModel, ChatModel> models = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+    public ChatModelRegistry() {
+        this(100, Duration.ofSeconds(30));
+    }
+
+    /**
+     * @param maxConnections max connections per provider host
+     * @param maxIdleTime idle time after which a connection is closed, it should be shorter than the provider one
+     */
+    public ChatModelRegistry(int maxConnections, Duration maxIdleTime) {
+        requireNonNull(maxIdleTime, "maxIdleTime cannot be null");
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be greater than 0");
+        }
+
+        this.connections = ConnectionProvider.builder("agui-models")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 4)
+                .pendingAcquireTimeout(Duration.ofSeconds(30))
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(Duration.ofMinutes(10))
+                .evictInBackground(maxIdleTime)
+                .metrics(true, () -> (poolName, id, remoteAddress, metrics) ->
+                        pools.put(String.valueOf(remoteAddress), metrics))
+                .build();
+
+        var httpClient = HttpClient.create(connections)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000);
+
+        this.restClientBuilder = RestClient.builder()
+                .requestFactory(new ReactorClientHttpRequestFactory(httpClient));
+        this.webClientBuilder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+
+    /**
+     * @param model the model
+     * @return the model client, created on first use
+     */
+    public ChatModel model(AIModel model) {
+        requireNonNull(model, "model cannot be null");
+        return models.computeIfAbsent(model, key -> {
+            log.debug("creating model client {}", key);
+            // builders are cloned because the provider APIs customize them, the cloned ones share the connector
+            return key.newModel(restClientBuilder.clone(), webClientBuilder.clone());
+        });
+    }
+
+    /**
+     * @return utilization of the connection pools, one per provider host
+     */
+    public List<PoolStats> poolStats() {
+        return pools.entrySet().stream()
+                .map(e -> new PoolStats(e.getKey(),
+                        e.getValue().acquiredSize(),
+                        e.getValue().allocatedSize(),
+                        e.getValue().idleSize(),
+                        e.getValue().pendingAcquireSize(),
+                        e.getValue().maxAllocatedSize()))
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        models.clear();
+        connections.dispose();
+    }
+}
@@ -0,0 +1,199 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.event.TextMessageContentEvent;
+import com.agui.server.EventFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventBridgeTest {
+
+    private final ExecutorService producers = Executors.newCachedThreadPool();
+    private final ExecutorService requesters = Executors.newSingleThreadExecutor();
+
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final CountDownLatch produced = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        producers.shutdownNow();
+        requesters.shutdownNow();
+    }
+
+    /**
+     * Bridges {@code count} content deltas, numbered from 0, emitted by a producer thread as the run loop does
+     */
+    private Flux<BaseEvent> bridged(BackpressurePolicy policy, CoalescingPolicy coalescing, int count) {
+        return Flux.create(sink -> {
+            final var bridge = new EventBridge(sink, policy, coalescing, () -> cancelled.set(true));
+            producers.execute(() -> {
+                try {
+                    for (int i = 0; i < count && !bridge.isCancelled(); ++i) {
+                        bridge.accept(EventFactory.textMessageContentEvent("message", String.valueOf(i)));
+                        accepted.incrementAndGet();
+                    }
+                    if (!bridge.isCancelled()) {
+                        bridge.complete();
+                    }
+                } catch (RuntimeException ex) {
+                    sink.error(ex);
+                } finally {
+                    produced.countDown();
+                }
+            });
+        });
+    }
+
+    private static List<String> deltas(List<BaseEvent> events) {
+        return events.stream()
+                .map(TextMessageContentEvent.class::cast)
+                .map(TextMessageContentEvent::getDelta)
+                .toList();
+    }
+
+    private void awaitAccepted(int expected) throws InterruptedException {
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (accepted.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // give a producer not blocked the chance to go beyond
+        Thread.sleep(100);
+    }
+
+    @Test
+    public void emitsInOrderWithSingleRequestsFromAnotherThread() throws Exception {
+        final var events = new CopyOnWriteArrayList<BaseEvent>();
+        final var done = new CountDownLatch(1);
+
+        bridged(BackpressurePolicy.buffer(4), null, 1_000).subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                requesters.execute(() -> request(1));
+            }
+
+            @Override
+            protected void hookOnNext(BaseEvent event) {
+                events.add(event);
+                requesters.execute(() -> request(1));
+            }
+
+            @Override
+            protected void hookFinally(SignalType type) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS), "stream stalled");
+        assertEquals(IntStream.range(0, 1_000).mapToObj(String::valueOf).toList(), deltas(events));
+    }
+
+    @Test
+    public void blocksProducerWhenBufferIsFull() throws Exception {
+        final var events = new CopyOnWriteArrayList<BaseEvent>();
+
+        bridged(BackpressurePolicy.buffer(4), null, 100).subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(2);
+            }
+
+            @Override
+            protected void hookOnNext(BaseEvent event) {
+                events.add(event);
+            }
+        });
+
+        // 2 delivered, 4 waiting for demand, the next one blocks the producer
+        awaitAccepted(6);
+        assertEquals(6, accepted.get());
+        assertEquals(List.of("0", "1"), deltas(events));
+        assertEquals(1, produced.getCount());
+    }
+
+    @Test
+    public void failsOnOverflowWithFailStrategy() {
+        StepVerifier.create(bridged(BackpressurePolicy.fail(4), null, 100), 0)
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(4, accepted.get());
+    }
+
+    @Test
+    public void coalescesWhenBufferIsFull() {
+        StepVerifier.create(bridged(BackpressurePolicy.coalesce(2), null, 10), 0)
+                .then(() -> {
+                    try {
+                        assertTrue(produced.await(5, TimeUnit.SECONDS), "producer blocked");
+                    } catch (InterruptedException ex) {
+                        throw Exceptions.propagate(ex);
+                    }
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .assertNext(event -> assertEquals("0", ((TextMessageContentEvent) event).getDelta()))
+                .assertNext(event -> assertEquals("123456789", ((TextMessageContentEvent) event).getDelta()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void cancellationUnblocksProducer() throws Exception {
+        final var subscriber = new BaseSubscriber<BaseEvent>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+        };
+        bridged(BackpressurePolicy.buffer(4), null, 1_000).subscribe(subscriber);
+
+        awaitAccepted(5);
+        assertEquals(1, produced.getCount());
+
+        subscriber.cancel();
+
+        assertTrue(produced.await(5, TimeUnit.SECONDS), "producer still blocked");
+        assertTrue(cancelled.get());
+        assertTrue(accepted.get() < 1_000);
+    }
+
+    @Test
+    public void mergesDeltasOfTheSameMessage() {
+        final Flux<BaseEvent> events = Flux.create(sink -> {
+            final var bridge = new EventBridge(sink,
+                    BackpressurePolicy.buffer(16),
+                    CoalescingPolicy.of(Duration.ofSeconds(10), 1_024),
+                    () -> {});
+            bridge.accept(EventFactory.textMessageContentEvent("first", "a"));
+            bridge.accept(EventFactory.textMessageContentEvent("first", "b"));
+            bridge.accept(EventFactory.textMessageContentEvent("second", "c"));
+            bridge.accept(EventFactory.textMessageEndEvent("second"));
+            bridge.complete();
+        });
+
+        StepVerifier.create(events)
+                .assertNext(event -> assertEquals("ab", ((TextMessageContentEvent) event).getDelta()))
+                .assertNext(event -> assertEquals("c", ((TextMessageContentEvent) event).getDelta()))
+                .assertNext(event -> assertEquals("TEXT_MESSAGE_END", event.getType().name()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+}
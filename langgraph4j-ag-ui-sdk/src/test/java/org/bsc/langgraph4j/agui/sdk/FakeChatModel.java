@@ -0,0 +1,109 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static org.bsc.langgraph4j.utils.CollectionsUtils.lastOf;
+
+/**
+ * Deterministic, offline {@link ChatModel} standing in for a real provider in the tests.
+ * <p>
+ * When the last prompt message is a user message mentioning an email, it answers with a {@code sendEmail} tool call,
+ * that triggers the approval interrupt of the sample agent. Otherwise it streams {@code tokens} tokens
+ * at {@code tokensPerSecond}, after {@code firstTokenLatency}.
+ */
+public class FakeChatModel implements ChatModel {
+
+    public static final String EMAIL_TRIGGER = "email";
+
+    private final List<String> tokens;
+    private final Duration firstTokenLatency;
+    private final Duration interTokenDelay;
+
+    /**
+     * @param tokens number of tokens of each answer
+     * @param tokensPerSecond token rate, zero or negative means as fast as possible
+     * @param firstTokenLatency latency before the first token
+     */
+    public FakeChatModel(int tokens, double tokensPerSecond, Duration firstTokenLatency) {
+        if (tokens <= 0) {
+            throw new IllegalArgumentException("tokens must be greater than 0");
+        }
+        this.tokens = IntStream.range(0, tokens)
+                .mapToObj(i -> (i == 0) ? "Token" : " token" + i)
+                .toList();
+        this.firstTokenLatency = requireNonNull(firstTokenLatency, "firstTokenLatency cannot be null");
+        this.interTokenDelay = (tokensPerSecond > 0) ?
+                Duration.ofNanos((long) (1_000_000_000L / tokensPerSecond)) :
+                Duration.ZERO;
+    }
+
+    private boolean isToolCallRequested(Prompt prompt) {
+        return lastOf(prompt.getInstructions())
+                .filter(message -> message.getMessageType() == MessageType.USER)
+                .map(Message::getText)
+                .map(text -> text.contains(EMAIL_TRIGGER))
+                .orElse(false);
+    }
+
+    private AssistantMessage sendEmailToolCall() {
+        var toolCall = new AssistantMessage.ToolCall(
+                "call_" + UUID.randomUUID(),
+                "function",
+                "sendEmail",
+                "{\"to\":\"someone@example.com\",\"subject\":\"load test\",\"body\":\"hello\"}");
+        return new AssistantMessage("", Map.of(), List.of(toolCall));
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        if (isToolCallRequested(prompt)) {
+            sleep(firstTokenLatency);
+            return new ChatResponse(List.of(new Generation(sendEmailToolCall())));
+        }
+        sleep(firstTokenLatency.plus(interTokenDelay.multipliedBy(tokens.size())));
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(String.join("", tokens)))));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        Flux<ChatResponse> chunks;
+        if (isToolCallRequested(prompt)) {
+            chunks = Flux.just(new ChatResponse(List.of(new Generation(sendEmailToolCall()))));
+        } else {
+            chunks = Flux.fromIterable(tokens)
+                    .map(token -> new ChatResponse(List.of(new Generation(new AssistantMessage(token)))));
+            if (!interTokenDelay.isZero()) {
+                chunks = chunks.delayElements(interTokenDelay);
+            }
+        }
+        if (!firstTokenLatency.isZero()) {
+            chunks = chunks.delaySubscription(firstTokenLatency);
+        }
+        return chunks;
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.core.event.TextMessageContentEvent;
+import com.agui.server.EventFactory;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunReplayBufferTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicInteger emitted = new AtomicInteger();
+
+    private Flux<BaseEvent> events(int count) {
+        executions.incrementAndGet();
+        return Flux.range(1, count)
+                .<BaseEvent>map(i -> EventFactory.textMessageContentEvent("message", String.valueOf(i)))
+                .doOnNext(event -> emitted.incrementAndGet());
+    }
+
+    private static String delta(SequencedEvent event) {
+        return ((TextMessageContentEvent) event.event()).getDelta();
+    }
+
+    @Test
+    public void sequencesTheRunEvents() {
+        final var buffer = new RunReplayBuffer(ReplayPolicy.of(8, 64));
+
+        StepVerifier.create(buffer.run("run-1", () -> events(20), () -> {}))
+                .thenConsumeWhile(event -> String.valueOf(event.id()).equals(delta(event)))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(20, emitted.get());
+    }
+
+    @Test
+    public void resumesAfterTheLastEventReceived() {
+        final var buffer = new RunReplayBuffer(ReplayPolicy.of(8, 64));
+        buffer.run("run-1", () -> events(20), () -> {}).blockLast(Duration.ofSeconds(5));
+
+        final var resumed = buffer.resume("run-1", 15).orElseThrow();
+
+        StepVerifier.create(resumed.map(SequencedEvent::id))
+                .expectNextSequence(LongStream.rangeClosed(16, 20).boxed().toList())
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void failsWhenTheFollowingEventsAreOverwritten() {
+        final var buffer = new RunReplayBuffer(ReplayPolicy.of(8, 64));
+        buffer.run("run-1", () -> events(20), () -> {}).blockLast(Duration.ofSeconds(5));
+
+        // events 13..20 are still buffered, the client needs them from 6
+        assertThrows(RunReplayBuffer.ReplayGapException.class, () -> buffer.resume("run-1", 5));
+        assertTrue(buffer.resume("run-1", 12).isPresent());
+    }
+
+    @Test
+    public void resumesNothingForUnknownRuns() {
+        final var buffer = new RunReplayBuffer(ReplayPolicy.of(8, 64));
+
+        assertTrue(buffer.resume("run-1", 0).isEmpty());
+    }
+
+    @Test
+    public void attachesDuplicateRunsToTheBufferedOne() {
+        final var buffer = new RunReplayBuffer(ReplayPolicy.of(32, 64));
+        final var duplicates = new AtomicInteger();
+        buffer.run("run-1", () -> events(20), duplicates::incrementAndGet).blockLast(Duration.ofSeconds(5));
+
+        StepVerifier.create(buffer.run("run-1", () -> events(20), duplicates::incrementAndGet).map(SequencedEvent::id))
+                .expectNextSequence(LongStream.rangeClosed(1, 20).boxed().toList())
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, executions.get());
+        assertEquals(1, duplicates.get());
+    }
+
+    @Test
+    public void followsTheSlowestSubscriber() {
+        final var buffer = new RunReplayBuffer(ReplayPolicy.of(8, 64));
+
+        StepVerifier.create(buffer.run("run-1", () -> events(1_000), () -> {}), 1)
+                .expectNextCount(1)
+                .then(() -> assertTrue(emitted.get() <= 8, "emitted " + emitted.get() + " events"))
+                .thenRequest(4)
+                .expectNextCount(4)
+                .then(() -> assertTrue(emitted.get() <= 5 + 8, "emitted " + emitted.get() + " events"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void runsAheadWithoutSubscribers() {
+        final var buffer = new RunReplayBuffer(ReplayPolicy.of(8, 64));
+
+        StepVerifier.create(buffer.run("run-1", () -> events(1_000), () -> {}), 1)
+                .expectNextCount(1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        // detached, the run keeps going until the reconnection
+        assertEquals(1_000, emitted.get());
+        StepVerifier.create(buffer.resume("run-1", 995).orElseThrow().map(SequencedEvent::id))
+                .expectNextSequence(LongStream.rangeClosed(996, 1_000).boxed().toList())
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+}
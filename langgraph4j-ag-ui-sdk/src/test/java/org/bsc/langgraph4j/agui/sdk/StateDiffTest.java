@@ -0,0 +1,159 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateDiffTest {
+
+    private static final AtomicInteger comparisons = new AtomicInteger();
+
+    /**
+     * A state value counting the deep comparisons
+     */
+    private record Message(String text) {
+        @Override
+        public boolean equals(Object other) {
+            comparisons.incrementAndGet();
+            return other instanceof Message message && text.equals(message.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return text.hashCode();
+        }
+    }
+
+    // keeps the keys order, so the order of the operations is known
+    private static Map<String, Object> map(Object... keyValues) {
+        final var result = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            result.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> op(String op, String path, Object value) {
+        return map("op", op, "path", path, "value", value);
+    }
+
+    private static Map<String, Object> remove(String path) {
+        return map("op", "remove", "path", path);
+    }
+
+    private static List<Message> messages(int count) {
+        final var result = new ArrayList<Message>(count);
+        for (int i = 0; i < count; ++i) {
+            result.add(new Message("message " + i));
+        }
+        return result;
+    }
+
+    @Test
+    public void findsNothingInEqualStates() {
+        final var state = map("counter", 1, "messages", messages(3));
+
+        assertEquals(List.of(), StateDiff.diff(state, state));
+        assertEquals(List.of(), StateDiff.diff(state, new HashMap<>(state)));
+        assertEquals(List.of(), StateDiff.diff(map("counter", 1), map("counter", 1)));
+    }
+
+    @Test
+    public void escapesThePointerTokens() {
+        final var ops = StateDiff.diff(map("a~b", 0), map("a/b", 1, "c~/d", map("e/f", 2)));
+
+        assertEquals(List.of(
+                remove("/a~0b"),
+                op("add", "/a~1b", 1),
+                op("add", "/c~0~1d", map("e/f", 2))), ops);
+    }
+
+    @Test
+    public void replacesChangedValues() {
+        final var ops = StateDiff.diff(map("counter", 1, "label", "a"), map("counter", "1", "label", "a"));
+
+        assertEquals(List.of(op("replace", "/counter", "1")), ops);
+    }
+
+    @Test
+    public void diffsNestedMaps() {
+        final var before = map("user", map("name", "x", "age", 1, "tags", map("a", 1)));
+        final var after = map("user", map("name", "y", "tags", map("a", 1, "b", 2)));
+
+        assertEquals(List.of(
+                remove("/user/age"),
+                op("replace", "/user/name", "y"),
+                op("add", "/user/tags/b", 2)), StateDiff.diff(before, after));
+    }
+
+    @Test
+    public void appendsToLists() {
+        final var before = messages(3);
+        final var after = new ArrayList<>(before);
+        after.add(new Message("message 3"));
+        after.add(new Message("message 4"));
+
+        assertEquals(List.of(
+                op("add", "/messages/-", after.get(3)),
+                op("add", "/messages/-", after.get(4))), StateDiff.diff(map("messages", before), map("messages", after)));
+    }
+
+    @Test
+    public void truncatesListsFromTheTail() {
+        final var before = messages(4);
+        final var after = new ArrayList<>(before.subList(0, 2));
+
+        assertEquals(List.of(
+                remove("/messages/3"),
+                remove("/messages/2")), StateDiff.diff(map("messages", before), map("messages", after)));
+    }
+
+    @Test
+    public void diffsListsChangedInPlace() {
+        final var before = List.of("a", map("k", 1), "c");
+        final var after = List.of("a", map("k", 2), "d");
+
+        assertEquals(List.of(
+                op("replace", "/items/1/k", 2),
+                op("replace", "/items/2", "d")), StateDiff.diff(map("items", before), map("items", after)));
+    }
+
+    @Test
+    public void replacesListsChangedInTheMiddleAndResized() {
+        final var before = List.of("a", "b", "c");
+        final var after = List.of("a", "x", "c", "d");
+
+        assertEquals(List.of(op("replace", "/items", after)), StateDiff.diff(map("items", before), map("items", after)));
+    }
+
+    @Test
+    public void skipsTheSharedElementsByReference() {
+        final var before = messages(1_000);
+        final var after = new ArrayList<>(before);
+        after.add(new Message("answer"));
+        comparisons.set(0);
+
+        final var ops = StateDiff.diff(map("messages", before), map("messages", after));
+
+        assertEquals(0, comparisons.get());
+        assertEquals(List.of(op("add", "/messages/-", after.get(1_000))), ops);
+    }
+
+    @Test
+    public void comparesCopiedElementsInsteadOfReplacingTheList() {
+        final var before = messages(10);
+        // restored from a checkpoint, equal but not the same references
+        final var after = messages(11);
+
+        final var ops = StateDiff.diff(map("messages", before), map("messages", after));
+
+        assertEquals(List.of(op("add", "/messages/-", after.get(10))), ops);
+    }
+}
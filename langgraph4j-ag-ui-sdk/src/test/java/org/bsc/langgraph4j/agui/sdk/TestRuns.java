@@ -0,0 +1,81 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.agent.RunAgentParameters;
+import com.agui.core.event.BaseEvent;
+import com.agui.core.message.BaseMessage;
+import com.agui.json.ObjectMapperFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agents and inputs shared by the unit tests, runs are answered offline by a {@link FakeChatModel}
+ */
+final class TestRuns {
+
+    static final ObjectMapper OBJECT_MAPPER = objectMapper();
+
+    private TestRuns() {}
+
+    /**
+     * @return a new mapper with the AG-UI mixins
+     */
+    static ObjectMapper objectMapper() {
+        var result = new ObjectMapper();
+        ObjectMapperFactory.addMixins(result);
+        return result;
+    }
+
+    /**
+     * @param config the agent configuration
+     * @param tokens number of tokens streamed by each answer
+     * @return an agent answering as fast as possible
+     */
+    static AGUIAgentExecutor agent(AGUIAgentConfig config, int tokens) {
+        return new AGUIAgentExecutor(config, new ChatModelRegistry(), new FakeChatModel(tokens, 0, Duration.ZERO));
+    }
+
+    /**
+     * @param threadId the thread
+     * @param runId the run, may be {@code null}
+     * @param userMessages the conversation, all user messages
+     * @return the run input
+     */
+    static RunAgentParameters input(String threadId, String runId, String... userMessages) {
+        final var messages = new ArrayList<BaseMessage>(userMessages.length);
+        for (int i = 0; i < userMessages.length; ++i) {
+            messages.add(userMessage("msg-" + i, userMessages[i]));
+        }
+        return RunAgentParameters.builder()
+                .threadId(threadId)
+                .runId(runId)
+                .messages(messages)
+                .tools(List.of())
+                .context(List.of())
+                .build();
+    }
+
+    static BaseMessage userMessage(String id, String content) {
+        try {
+            return OBJECT_MAPPER.readValue(OBJECT_MAPPER.writeValueAsString(Map.of(
+                    "id", id,
+                    "role", "user",
+                    "content", content)), BaseMessage.class);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @param events the events of a run
+     * @return their types, in order
+     */
+    static List<String> types(List<? extends BaseEvent> events) {
+        return events.stream().map(event -> event.getType().name()).toList();
+    }
+}
@@ -0,0 +1,96 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import org.bsc.langgraph4j.CompiledGraph;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ThreadRegistryTest {
+
+    private final List<String> evicted = new CopyOnWriteArrayList<>();
+
+    private ThreadRegistry registry(int maxSize, Duration idleTtl) {
+        final var registry = new ThreadRegistry(maxSize, idleTtl);
+        registry.addEvictionListener((threadId, graphData, cause) -> evicted.add(threadId + ':' + cause));
+        return registry;
+    }
+
+    private static GraphData graph(String threadId) {
+        return new GraphData(mock(CompiledGraph.class));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedThreads() {
+        final var registry = registry(2, Duration.ZERO);
+
+        registry.computeIfAbsent("a", ThreadRegistryTest::graph);
+        registry.computeIfAbsent("b", ThreadRegistryTest::graph);
+        registry.get("a");
+        registry.computeIfAbsent("c", ThreadRegistryTest::graph);
+
+        assertEquals(List.of("b:SIZE"), evicted);
+        assertTrue(registry.contains("a"));
+        assertTrue(registry.contains("c"));
+    }
+
+    @Test
+    public void doesNotEvictThreadsWithARunInProgress() {
+        final var registry = registry(1, Duration.ZERO);
+
+        final var running = registry.pin("a", ThreadRegistryTest::graph);
+        registry.pin("b", ThreadRegistryTest::graph);
+
+        // both are running, the registry stays above its size meanwhile
+        assertEquals(List.of(), evicted);
+        assertEquals(2, registry.size());
+
+        // the run ends, the graph it stored is kept with the pin
+        registry.put("a", running.withInterruption(true));
+        assertEquals(List.of(), evicted);
+
+        registry.unpin("a");
+        assertEquals(List.of("a:SIZE"), evicted);
+        assertTrue(registry.contains("b"));
+        assertEquals(1, registry.sizeEvictionCount());
+    }
+
+    @Test
+    public void doesNotExpireThreadsWithARunInProgress() throws InterruptedException {
+        final var registry = registry(10, Duration.ofMillis(20));
+
+        registry.pin("a", ThreadRegistryTest::graph);
+        Thread.sleep(50);
+        registry.evictExpired();
+
+        assertEquals(List.of(), evicted);
+        assertTrue(registry.contains("a"));
+
+        // the idle time starts when the run ends
+        registry.unpin("a");
+        assertTrue(registry.contains("a"));
+        Thread.sleep(50);
+        registry.evictExpired();
+
+        assertEquals(List.of("a:EXPIRED"), evicted);
+    }
+
+    @Test
+    public void unpinsEveryRun() {
+        final var registry = registry(1, Duration.ZERO);
+
+        registry.pin("a", ThreadRegistryTest::graph);
+        registry.pin("a", ThreadRegistryTest::graph);
+        registry.pin("b", ThreadRegistryTest::graph);
+
+        registry.unpin("a");
+        assertEquals(List.of(), evicted);
+
+        registry.unpin("a");
+        assertEquals(List.of("a:SIZE"), evicted);
+    }
+}
@@ -0,0 +1,214 @@
+package org.bsc.langgraph4j.agui.sdk;
+
+import com.agui.core.event.BaseEvent;
+import com.agui.server.EventFactory;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreadRunLanesTest {
+
+    /**
+     * Execution driven by the test: it emits RUN_STARTED, then waits for {@link #finish()}.
+     * The lane is released when the execution stream ends, as the run loop does. A lingering execution, once cancelled,
+     * is released only on {@link #exit()}, as a run loop waiting for the in-flight node.
+     */
+    private static final class Execution {
+        final Sinks.Many<BaseEvent> events = Sinks.many().unicast().onBackpressureBuffer();
+        final AtomicBoolean started = new AtomicBoolean();
+        final AtomicBoolean released = new AtomicBoolean();
+        final boolean lingering;
+        volatile Runnable release;
+
+        Execution(boolean lingering) {
+            this.lingering = lingering;
+        }
+
+        Execution() {
+            this(false);
+        }
+
+        Flux<BaseEvent> apply(Runnable release) {
+            started.set(true);
+            this.release = release;
+            return Flux.<BaseEvent>just(EventFactory.runStartedEvent("thread", "run"))
+                    .concatWith(events.asFlux())
+                    .doFinally(signal -> {
+                        if (!lingering || signal != SignalType.CANCEL) {
+                            exit();
+                        }
+                    });
+        }
+
+        void finish() {
+            events.tryEmitNext(EventFactory.runFinishedEvent("thread", "run"));
+            events.tryEmitComplete();
+        }
+
+        void exit() {
+            released.set(true);
+            release.run();
+        }
+    }
+
+    private static Flux<BaseEvent> rejection() {
+        return Flux.<BaseEvent>just(EventFactory.runErrorEvent("busy"));
+    }
+
+    private static Flux<BaseEvent> supersession(boolean started) {
+        final var error = EventFactory.runErrorEvent("superseded");
+        return started ?
+                Flux.<BaseEvent>just(error) :
+                Flux.<BaseEvent>just(EventFactory.runStartedEvent("thread", "run"), error);
+    }
+
+    private static Flux<BaseEvent> submit(ThreadRunLanes lanes, String threadId, Execution execution) {
+        return lanes.submit(threadId, execution::apply, ThreadRunLanesTest::rejection, ThreadRunLanesTest::supersession);
+    }
+
+    private static String type(BaseEvent event) {
+        return event.getType().name();
+    }
+
+    @Test
+    public void queuesRunsOfTheSameThread() {
+        final var lanes = new ThreadRunLanes(ConcurrentRunPolicy.QUEUE);
+        final var first = new Execution();
+        final var second = new Execution();
+
+        final var firstEvents = StepVerifier.create(submit(lanes, "thread", first))
+                .assertNext(event -> assertEquals("RUN_STARTED", type(event)))
+                .assertNext(event -> assertEquals("RUN_FINISHED", type(event)))
+                .expectComplete()
+                .verifyLater();
+        final var secondEvents = StepVerifier.create(submit(lanes, "thread", second))
+                .assertNext(event -> assertEquals("RUN_STARTED", type(event)))
+                .assertNext(event -> assertEquals("RUN_FINISHED", type(event)))
+                .expectComplete()
+                .verifyLater();
+
+        assertTrue(first.started.get());
+        assertFalse(second.started.get());
+
+        first.finish();
+        firstEvents.verify(Duration.ofSeconds(5));
+        assertTrue(second.started.get());
+
+        second.finish();
+        secondEvents.verify(Duration.ofSeconds(5));
+        assertEquals(0, lanes.size());
+    }
+
+    @Test
+    public void runsOfDifferentThreadsDontWait() {
+        final var lanes = new ThreadRunLanes(ConcurrentRunPolicy.QUEUE);
+        final var first = new Execution();
+        final var second = new Execution();
+
+        submit(lanes, "thread-1", first).subscribe();
+        submit(lanes, "thread-2", second).subscribe();
+
+        assertTrue(first.started.get());
+        assertTrue(second.started.get());
+        assertEquals(2, lanes.size());
+
+        first.finish();
+        second.finish();
+        assertEquals(0, lanes.size());
+    }
+
+    @Test
+    public void rejectsRunsOfABusyThread() {
+        final var lanes = new ThreadRunLanes(ConcurrentRunPolicy.REJECT);
+        final var first = new Execution();
+        final var second = new Execution();
+
+        submit(lanes, "thread", first).subscribe();
+
+        StepVerifier.create(submit(lanes, "thread", second))
+                .assertNext(event -> assertEquals("RUN_ERROR", type(event)))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertFalse(second.started.get());
+
+        // the thread accepts runs again once the first one is over
+        first.finish();
+        final var third = new Execution();
+        submit(lanes, "thread", third).subscribe();
+        assertTrue(third.started.get());
+    }
+
+    @Test
+    public void endsTheSupersededRunWithAnError() {
+        final var lanes = new ThreadRunLanes(ConcurrentRunPolicy.CANCEL_PREVIOUS);
+        final var first = new Execution();
+        final var second = new Execution();
+
+        final var firstEvents = StepVerifier.create(submit(lanes, "thread", first))
+                .assertNext(event -> assertEquals("RUN_STARTED", type(event)))
+                .assertNext(event -> assertEquals("RUN_ERROR", type(event)))
+                .expectComplete()
+                .verifyLater();
+
+        final var secondEvents = StepVerifier.create(submit(lanes, "thread", second))
+                .assertNext(event -> assertEquals("RUN_STARTED", type(event)))
+                .assertNext(event -> assertEquals("RUN_FINISHED", type(event)))
+                .expectComplete()
+                .verifyLater();
+
+        firstEvents.verify(Duration.ofSeconds(5));
+        // the second run starts only once the first execution has been released
+        assertTrue(first.released.get());
+        assertTrue(second.started.get());
+
+        second.finish();
+        secondEvents.verify(Duration.ofSeconds(5));
+        assertEquals(0, lanes.size());
+    }
+
+    @Test
+    public void tellsAQueuedSupersededRunItNeverStarted() {
+        final var lanes = new ThreadRunLanes(ConcurrentRunPolicy.CANCEL_PREVIOUS);
+        final var first = new Execution(true);
+        final var second = new Execution();
+        final var third = new Execution();
+
+        // the first run is superseded, but its loop has not exited yet, so the second one is queued behind it
+        submit(lanes, "thread", first).subscribe();
+        final var secondEvents = StepVerifier.create(submit(lanes, "thread", second))
+                .assertNext(event -> assertEquals("RUN_STARTED", type(event)))
+                .assertNext(event -> assertEquals("RUN_ERROR", type(event)))
+                .expectComplete()
+                .verifyLater();
+        submit(lanes, "thread", third).subscribe();
+
+        secondEvents.verify(Duration.ofSeconds(5));
+        assertFalse(second.started.get());
+        assertFalse(third.started.get());
+
+        first.exit();
+        assertFalse(second.started.get());
+        assertTrue(third.started.get());
+    }
+
+    @Test
+    public void releasesTheLaneWhenCancelledBeforeStarting() {
+        final var lanes = new ThreadRunLanes(ConcurrentRunPolicy.QUEUE);
+        final var first = new Execution();
+        final var second = new Execution();
+
+        submit(lanes, "thread", first).subscribe();
+        submit(lanes, "thread", second).subscribe().dispose();
+
+        first.finish();
+        assertFalse(second.started.get());
+        assertEquals(0, lanes.size());
+    }
+}
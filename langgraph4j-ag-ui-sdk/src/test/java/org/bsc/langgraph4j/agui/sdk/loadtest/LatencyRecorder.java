@@ -0,0 +1,60 @@
+package org.bsc.langgraph4j.agui.sdk.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records latencies in nanoseconds and computes their percentiles.
+ * Samples are kept as they are, which is fine for the few millions recorded by a load test run.
+ */
+final class LatencyRecorder {
+
+    record Percentiles(long count, double p50, double p90, double p99, double max) {
+
+        @Override
+        public String toString() {
+            return "count %8d  p50 %9.2f ms  p90 %9.2f ms  p99 %9.2f ms  max %9.2f ms"
+                    .formatted(count, p50, p90, p99, max);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] samples = new long[4096];
+    private int size;
+
+    void record(long nanos) {
+        lock.lock();
+        try {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Percentiles percentiles() {
+        final long[] sorted;
+        lock.lock();
+        try {
+            sorted = Arrays.copyOf(samples, size);
+        } finally {
+            lock.unlock();
+        }
+        if (sorted.length == 0) {
+            return new Percentiles(0, 0, 0, 0, 0);
+        }
+        Arrays.sort(sorted);
+        return new Percentiles(sorted.length,
+                millis(sorted, 0.50),
+                millis(sorted, 0.90),
+                millis(sorted, 0.99),
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        var index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,257 @@
+package org.bsc.langgraph4j.agui.sdk.loadtest;
+
+import org.bsc.langgraph4j.agui.sdk.AGUIApplication;
+import org.bsc.langgraph4j.agui.sdk.FakeChatModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End to end load test of the {@code /sse/{agentId}} endpoint.
+ * <p>
+ * Unless {@code --url} is given, it boots {@link AGUIApplication} in process with a {@link FakeChatModel},
+ * then opens {@code --clients} concurrent SSE clients. The clients asking for an email get the {@code sendEmail}
+ * approval interrupt and resume the thread with an {@code APPROVED} message, as the CopilotKit app does.
+ * <p>
+ * It reports time to first event, time to first token, inter-token latency percentiles, events per second
+ * and the heap used per open connection. Run it with:
+ * <pre>
+ * mvn test-compile exec:java -pl langgraph4j-ag-ui-sdk \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.bsc.langgraph4j.agui.sdk.loadtest.LoadTest \
+ *     -Dexec.args="--clients=2000 --tokens=200 --tokens-per-second=50 --approval-ratio=0.1"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE = new ParameterizedTypeReference<>() {};
+
+    private final LoadTestOptions options;
+    private final WebClient webClient;
+
+    private final LatencyRecorder timeToFirstEvent = new LatencyRecorder();
+    private final LatencyRecorder timeToFirstToken = new LatencyRecorder();
+    private final LatencyRecorder interTokenLatency = new LatencyRecorder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+    private final LongAdder approvals = new LongAdder();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final AtomicInteger peakOpenStreams = new AtomicInteger();
+    private final AtomicLong peakHeap = new AtomicLong();
+
+    /**
+     * Observes the events of a single run
+     */
+    private final class RunProbe {
+        final long startNanos = System.nanoTime();
+        long firstEventNanos;
+        long lastTokenNanos;
+        boolean approvalRequested;
+        boolean failed;
+
+        void onEvent(String type) {
+            final var now = System.nanoTime();
+            events.increment();
+            if (firstEventNanos == 0) {
+                firstEventNanos = now;
+                timeToFirstEvent.record(now - startNanos);
+            }
+            switch (type) {
+                case "TEXT_MESSAGE_CONTENT" -> {
+                    if (lastTokenNanos == 0) {
+                        timeToFirstToken.record(now - startNanos);
+                    } else {
+                        interTokenLatency.record(now - lastTokenNanos);
+                    }
+                    lastTokenNanos = now;
+                }
+                case "TOOL_CALL_END" -> approvalRequested = true;
+                case "RUN_ERROR" -> failed = true;
+                default -> { }
+            }
+        }
+    }
+
+    LoadTest(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+
+        var connections = ConnectionProvider.builder("agui-load-test")
+                .maxConnections(options.clients())
+                .pendingAcquireMaxCount(-1)
+                .build();
+
+        this.webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+    }
+
+    private static String eventType(String data) {
+        if (data == null) {
+            return "";
+        }
+        var start = data.indexOf("\"type\":\"");
+        if (start < 0) {
+            return "";
+        }
+        start += 8;
+        var end = data.indexOf('"', start);
+        return (end < 0) ? "" : data.substring(start, end);
+    }
+
+    private static String payload(String threadId, String... userMessages) {
+        var json = new StringBuilder(256)
+                .append("{\"threadId\":\"").append(threadId)
+                .append("\",\"runId\":\"").append(UUID.randomUUID())
+                .append("\",\"tools\":[],\"context\":[],\"forwardedProps\":{},\"messages\":[");
+        for (int i = 0; i < userMessages.length; ++i) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"msg-").append(i)
+                    .append("\",\"role\":\"user\",\"content\":\"").append(userMessages[i]).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private Mono<RunProbe> run(String threadId, String... userMessages) {
+        return Mono.defer(() -> {
+            final var probe = new RunProbe();
+            return webClient.post()
+                    .uri("/sse/{agentId}", options.agentId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .bodyValue(payload(threadId, userMessages))
+                    .retrieve()
+                    .bodyToFlux(SSE_TYPE)
+                    .doOnSubscribe(s -> peakOpenStreams.accumulateAndGet(openStreams.incrementAndGet(), Math::max))
+                    .doFinally(signal -> openStreams.decrementAndGet())
+                    .doOnNext(event -> probe.onEvent(eventType(event.data())))
+                    .then(Mono.fromSupplier(() -> {
+                        runs.increment();
+                        if (probe.failed) {
+                            failedRuns.increment();
+                        }
+                        return probe;
+                    }));
+        });
+    }
+
+    private Mono<Void> client(int index) {
+        final var threadId = "load-test-" + index;
+        final var question = options.isApprovalClient(index) ?
+                "please send an " + FakeChatModel.EMAIL_TRIGGER + " to someone@example.com" :
+                "tell me something about the weather";
+
+        return run(threadId, question)
+                .flatMap(probe -> {
+                    if (!probe.approvalRequested) {
+                        return Mono.empty();
+                    }
+                    approvals.increment();
+                    return run(threadId, question, "APPROVED");
+                })
+                .onErrorResume(ex -> {
+                    runs.increment();
+                    failedRuns.increment();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    void execute() throws InterruptedException {
+        System.gc();
+        TimeUnit.MILLISECONDS.sleep(500);
+        final var baselineHeap = usedHeap();
+
+        final var heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(usedHeap(), Math::max), 0, 100, TimeUnit.MILLISECONDS);
+
+        final var startNanos = System.nanoTime();
+        try {
+            var clients = Flux.range(0, options.clients());
+            if (!options.rampUp().isZero()) {
+                clients = clients.delayElements(options.rampUp().dividedBy(options.clients()));
+            }
+            clients.flatMap(this::client, options.clients())
+                    .then()
+                    .block(options.timeout());
+        } finally {
+            heapSampler.shutdownNow();
+        }
+        final var elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        System.out.printf("""
+                
+                clients                  %d (approvals %d)
+                runs                     %d (failed %d)
+                elapsed                  %.2f s
+                events                   %d (%.0f events/s)
+                time to first event      %s
+                time to first token      %s
+                inter-token latency      %s
+                peak open streams        %d
+                heap per open stream     %.1f KB (peak %d MB, baseline %d MB)
+                %n""",
+                options.clients(), approvals.sum(),
+                runs.sum(), failedRuns.sum(),
+                elapsedSeconds,
+                events.sum(), events.sum() / elapsedSeconds,
+                timeToFirstEvent.percentiles(),
+                timeToFirstToken.percentiles(),
+                interTokenLatency.percentiles(),
+                peakOpenStreams.get(),
+                Math.max(0, peakHeap.get() - baselineHeap) / 1024.0 / Math.max(1, peakOpenStreams.get()),
+                peakHeap.get() >> 20, baselineHeap >> 20);
+    }
+
+    public static void main(String[] args) throws Exception {
+        final var options = LoadTestOptions.parse(args);
+
+        ConfigurableApplicationContext server = null;
+        var baseUrl = options.url();
+        if (baseUrl == null) {
+            final ChatModel model = new FakeChatModel(options.tokens(), options.tokensPerSecond(), options.firstTokenLatency());
+            server = new SpringApplicationBuilder(AGUIApplication.class)
+                    .initializers(context -> ((GenericApplicationContext) context).registerBean(ChatModel.class, () -> model))
+                    .properties(
+                            "server.port=0",
+                            "server.tomcat.max-connections=" + Math.max(8192, options.clients() * 2),
+                            "spring.mvc.async.request-timeout=" + options.timeout().toMillis(),
+                            "logging.level.org.bsc.langgraph4j=WARN")
+                    .run();
+            baseUrl = "http://localhost:" + server.getEnvironment().getProperty("local.server.port");
+        }
+
+        try {
+            new LoadTest(options, baseUrl).execute();
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
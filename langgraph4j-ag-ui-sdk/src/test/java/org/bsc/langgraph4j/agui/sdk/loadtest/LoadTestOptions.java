@@ -0,0 +1,67 @@
+package org.bsc.langgraph4j.agui.sdk.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load test options, parsed from {@code --name=value} arguments
+ *
+ * @param url base url of the server under test, if {@code null} the sample application is started in process
+ * @param agentId agent id of the {@code /sse/{agentId}} endpoint
+ * @param clients number of concurrent SSE clients
+ * @param rampUp time to open all the clients
+ * @param tokens number of tokens of each model answer
+ * @param tokensPerSecond model token rate, zero means as fast as possible
+ * @param firstTokenLatency model latency before the first token
+ * @param approvalRatio ratio of clients asking for an email, that is interrupted for approval and then resumed
+ * @param timeout max duration of the whole test
+ */
+record LoadTestOptions(
+        String url,
+        String agentId,
+        int clients,
+        Duration rampUp,
+        int tokens,
+        double tokensPerSecond,
+        Duration firstTokenLatency,
+        double approvalRatio,
+        Duration timeout) {
+
+    LoadTestOptions {
+        if (clients <= 0) {
+            throw new IllegalArgumentException("clients must be greater than 0");
+        }
+        if (approvalRatio < 0 || approvalRatio > 1) {
+            throw new IllegalArgumentException("approval-ratio must be between 0 and 1");
+        }
+    }
+
+    static LoadTestOptions parse(String... args) {
+        final Map<String, String> values = new HashMap<>();
+        for (var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("invalid argument '%s', expected --name=value".formatted(arg));
+            }
+            var separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(
+                values.get("url"),
+                values.getOrDefault("agent", "agentExecutor"),
+                Integer.parseInt(values.getOrDefault("clients", "1000")),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("ramp-up-ms", "5000"))),
+                Integer.parseInt(values.getOrDefault("tokens", "200")),
+                Double.parseDouble(values.getOrDefault("tokens-per-second", "50")),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("first-token-latency-ms", "300"))),
+                Double.parseDouble(values.getOrDefault("approval-ratio", "0.1")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("timeout-s", "600"))));
+    }
+
+    /**
+     * Spreads the clients asking for approval evenly over the client indexes
+     */
+    boolean isApprovalClient(int index) {
+        return Math.floor((index + 1) * approvalRatio) > Math.floor(index * approvalRatio);
+    }
+}